@@ -4,6 +4,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+import java.util.Map;
+
 @Configuration
 @ConfigurationProperties(prefix = "game")
 @Data
@@ -14,6 +17,11 @@ public class GameConfig {
     private Player player = new Player();
     private Physics physics = new Physics();
     private Engine engine = new Engine();
+    private Admission admission = new Admission();
+    private Warmup warmup = new Warmup();
+    private Checkpoint checkpoint = new Checkpoint();
+    private Weapons weapons = new Weapons();
+    private Supply supply = new Supply();
 
     @Data
     public static class Matchmaking {
@@ -25,12 +33,34 @@ public class GameConfig {
         private int killsToWin; // 胜利击杀数
         private long maxDurationMs; // 游戏最长持续时间
         private int countdownSeconds; // 开局倒计时
+        private long reconnectGraceMs = 15000; // 异常断线后为玩家保留席位的时长
     }
 
     @Data
     public static class Player {
         private int maxHealth;
         private long respawnTimeMs;
+        private int maxProjectiles = 32; // 每名玩家同时在飞的子弹上限，超出的射击不再生成子弹
+    }
+
+    @Data
+    public static class Weapons {
+        private List<String> hitscan = List.of("Railgun"); // 即时命中的武器，开枪时直接做射线检测，不生成子弹
+        private long viewDelayMs = 100; // 客户端渲染其他玩家相对服务器的延迟，即时命中按该时长回退目标位置
+        private long maxRewindMs = 250; // 即时命中最多回退的时长，超出按该值截断
+        private int maxPellets = 16; // 一次齐射最多展开的弹丸数
+        private double maxSpreadRad = 1.0; // 齐射扩散角上限（弧度）
+        private Map<String, Double> maxRange = Map.of( // 各武器射程上限，客户端上报的 range 超出时按上限处理
+                "Pistol", 2000.0, "MachineGun", 2000.0, "Shotgun", 1200.0, "Railgun", 4000.0);
+        private double defaultMaxRange = 2000.0; // 未在 max-range 中列出的武器的射程上限
+    }
+
+    @Data
+    public static class Supply {
+        private long spawnIntervalMs = 20000; // 每个房间的补给刷新间隔，由房间时间轮调度
+        private int maxLive = 4; // 场上同时存在的补给上限，达到后跳过刷新
+        private long ttlMs = 60000; // 补给未被拾取时的存活时长
+        private double pickupRadius = 64.0; // 补给点距玩家碰撞盒不超过该距离才能拾取
     }
 
     @Data
@@ -44,5 +74,46 @@ public class GameConfig {
     @Data
     public static class Engine {
         private long tickRateMs; // Tick 频率
+        private int tickWorkers; // Tick 工作线程数，<=0 时取 CPU 核数
+        private int maxCatchUpSteps = 5; // 单次唤醒最多补跑的步数，超出部分丢弃
+        private long hibernateAfterMs = 3000; // 房间无入站命令且无进行中的效果超过该时长后休眠
+        private List<Long> degradedTickRatesMs = List.of(33L, 50L); // 过载时依次降到的步长（30Hz、20Hz）
+        private long rateWindowMs = 500; // 降频控制的统计窗口
+        private double overloadRatio = 0.85; // 线程忙碌占比超过该值时降频
+        private double recoverRatio = 0.6; // 预计恢复后的忙碌占比低于该值时才恢复一档
+        private int sendTimeLimitMs = 2000; // 单个连接一次发送允许阻塞的最长时间，超时断开该连接
+        private int sendBufferLimitBytes = 512 * 1024; // 单个连接待发送缓冲的上限，超出断开该连接
+        private int simulationThreads; // 大房间并行推进子弹的线程数，<=0 时取 CPU 核数
+        private int parallelMinPlayers = 16; // 房间人数达到该值且子弹数达到下限时才走并行路径
+        private int parallelMinProjectiles = 64;
+        private int parallelChunkSize = 32; // 并行时每块的子弹数
+        private double gridCellSize = 256; // 子弹宽相位网格的格子边长
+        private int gridMinPlayers = 8; // 存活玩家达到该值时才建网格，人少时直接遍历更快
+    }
+
+    @Data
+    public static class Admission {
+        private double maxTickUtilization = 0.7; // 目标线程接入新对局后的预计忙碌占比上限，需低于降频阈值
+        private int maxActivePlayers = 2000; // 对局中玩家总数上限
+        private long maxOutboundBytes = 16L * 1024 * 1024; // 所有连接待发送缓冲总量上限
+        private long retryAfterMs = 5000; // 拒绝时建议大厅重试的间隔
+    }
+
+    @Data
+    public static class Warmup {
+        private boolean enabled; // 启动后、接受流量前是否先用进程内假房间预热热点代码
+        private int rooms = 2; // 预热房间数
+        private int playersPerRoom = 4; // 每个预热房间的假玩家数
+        private int iterations = 3000; // 每个房间推进的步数
+        private int shotEvery = 8; // 每个假玩家每隔多少步开一枪
+    }
+
+    @Data
+    public static class Checkpoint {
+        private boolean enabled; // 停机时把进行中的对局写入检查点文件，启动时恢复
+        private String path = "data/game-checkpoint.bin";
+        private long saveTimeoutMs = 3000; // 等待各房间 tick 线程写出状态的最长时间
+        private long maxAgeMs = 300000; // 检查点超过该时长未恢复则视为过期，不再恢复
+        private long reconnectGraceMs = 60000; // 恢复后等待玩家重连的时长，超时未重连的玩家按离开处理
     }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package org.csu.pixelstrikebackend.game;
+
+/**
+ * 游戏模块对“能否再开一局”的答复。拒绝时给出原因和建议的重试间隔，由大厅决定如何提示玩家或稍后重试。
+ */
+public final class AdmissionDecision {
+
+    private static final AdmissionDecision ACCEPTED = new AdmissionDecision(true, null, 0);
+
+    public final boolean admitted;
+    public final String reason;
+    public final long retryAfterMs;
+
+    private AdmissionDecision(boolean admitted, String reason, long retryAfterMs) {
+        this.admitted = admitted;
+        this.reason = reason;
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    public static AdmissionDecision accept() {
+        return ACCEPTED;
+    }
+
+    public static AdmissionDecision full(String reason, long retryAfterMs) {
+        return new AdmissionDecision(false, reason, retryAfterMs);
+    }
+}
@@ -9,6 +9,9 @@ import java.util.Map;
 @Service
 public interface GameLobbyBridge {
 
+    // 大厅在创建对局记录之前调用，询问游戏模块当前是否还有容量承载一局 playerCount 人的新对局
+    AdmissionDecision checkAdmission(int playerCount);
+
     // 大厅调用此方法，通知游戏模块准备一个新对局
     void onMatchSuccess(Long gameId, Map<Integer, Integer> playerCharacterSelections);
 
@@ -0,0 +1,87 @@
+package org.csu.pixelstrikebackend.game.engine;
+
+/**
+ * 单个房间一个 tick 内的伤害累加器。子弹命中、中毒、炸弹等伤害先按受害者槽位累加，
+ * 到 tick 末尾由调用方统一扣血并结算死亡、击杀归属和复活，同一 tick 的伤害合并成一条广播。
+ * 累加时按“当前生命值 - 已累加伤害”判断致命，打出致命一击的攻击者获得击杀，
+ * 之后同一 tick 内的伤害不再计入该玩家，与逐次扣血时“跳过已死亡玩家”的语义一致。
+ * 只在所属房间的 tick 线程上访问。
+ */
+public class DamageAccumulator {
+
+    private final int[] amount;
+    private final int[] lastAttacker;
+    private final int[] killer;
+    private final boolean[] lethal;
+    private final double[] kx, ky;
+    private final int[] victims; // 按首次受伤顺序记录的槽位
+    private int count;
+
+    public DamageAccumulator(int players) {
+        this.amount = new int[players];
+        this.lastAttacker = new int[players];
+        this.killer = new int[players];
+        this.lethal = new boolean[players];
+        this.kx = new double[players];
+        this.ky = new double[players];
+        this.victims = new int[players];
+    }
+
+    /**
+     * 记一次伤害，返回 true 表示这一下是致命一击。attackerSlot 为 GameWorld.NO_SLOT 表示环境伤害；
+     * 攻击者与受害者相同、受害者已死亡或本 tick 已被判定致命时忽略。
+     */
+    public boolean add(GameWorld world, int attackerSlot, int victimSlot, int damage, double knockX, double knockY) {
+        if (damage <= 0 || attackerSlot == victimSlot) return false;
+        if (world.isDead(victimSlot) || lethal[victimSlot]) return false;
+        if (amount[victimSlot] == 0) {
+            victims[count++] = victimSlot;
+        }
+        amount[victimSlot] += damage;
+        lastAttacker[victimSlot] = attackerSlot;
+        kx[victimSlot] = knockX;
+        ky[victimSlot] = knockY;
+        if (amount[victimSlot] >= world.getHp(victimSlot)) {
+            lethal[victimSlot] = true;
+            killer[victimSlot] = attackerSlot;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 该玩家已死亡，或本 tick 累加的伤害已经致命。
+     */
+    public boolean isDown(GameWorld world, int slot) {
+        return lethal[slot] || world.isDead(slot);
+    }
+
+    /**
+     * 本 tick 受到伤害的玩家数，下标范围 [0, size())。
+     */
+    public int size() {
+        return count;
+    }
+
+    public int victimAt(int i) { return victims[i]; }
+    public int getAmount(int slot) { return amount[slot]; }
+    public boolean isLethal(int slot) { return lethal[slot]; }
+    public double getKnockX(int slot) { return kx[slot]; }
+    public double getKnockY(int slot) { return ky[slot]; }
+
+    /**
+     * 致命时为击杀者，否则为最后一个攻击者；环境伤害为 GameWorld.NO_SLOT。
+     */
+    public int getAttacker(int slot) {
+        return lethal[slot] ? killer[slot] : lastAttacker[slot];
+    }
+
+    public void clear() {
+        for (int i = 0; i < count; i++) {
+            int slot = victims[i];
+            amount[slot] = 0;
+            lethal[slot] = false;
+        }
+        count = 0;
+    }
+}
@@ -0,0 +1,289 @@
+package org.csu.pixelstrikebackend.game.engine;
+
+import org.csu.pixelstrikebackend.game.service.GameRoomService;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 单个房间的玩家权威状态。开局时给每名玩家分配一个连续的槽位，状态按槽位存放在基本类型数组中，
+ * tick 内部的命中、伤害、复活都直接按槽位读写，不再经过以装箱 userId 为键的全局 Map；
+ * 对局结束时随 ActiveGame 一起丢弃，不需要逐个玩家清理。
+ * 除 acceptStateSeq（WebSocket 线程上的连接级过滤）和 resetStateSeq（WebSocket 线程上的 handleJoin）外，只在房间的 tick 线程上访问。
+ */
+public class GameWorld {
+
+    public static final int NO_SLOT = -1;
+
+    // 武器按编号存放，未知类型按手枪处理
+    private static final String[] WEAPONS = {"Pistol", "MachineGun", "Shotgun", "Railgun"};
+    // 状态包最多 120 条/秒，保留约 2 秒的历史
+    private static final int SNAPSHOT_CAPACITY = 256;
+
+    private final int maxHp;
+    private final int[] userIds;
+    private final int[] hp;
+    private final boolean[] dead;
+    private final long[] deathAt;
+    private final long[] poisonUntil; // 0 表示未中毒
+    private final byte[] weapon;
+    private final int[] kills;
+    private final int[] deaths;
+    private final AtomicLongArray lastSeq;
+    private final SnapshotRing[] snapshots;
+    private final TimingWheel.Timeout[] reconnectGrace; // 断线玩家的重连截止定时器，未断线为 null；不写入检查点
+
+    public GameWorld(List<Integer> playerIds, int maxHp) {
+        int n = playerIds.size();
+        this.maxHp = maxHp;
+        this.userIds = new int[n];
+        for (int i = 0; i < n; i++) {
+            userIds[i] = playerIds.get(i);
+        }
+        this.hp = new int[n];
+        this.dead = new boolean[n];
+        this.deathAt = new long[n];
+        this.poisonUntil = new long[n];
+        this.weapon = new byte[n];
+        this.kills = new int[n];
+        this.deaths = new int[n];
+        this.lastSeq = new AtomicLongArray(n);
+        this.snapshots = new SnapshotRing[n];
+        for (int i = 0; i < n; i++) {
+            snapshots[i] = new SnapshotRing(SNAPSHOT_CAPACITY);
+        }
+        this.reconnectGrace = new TimingWheel.Timeout[n];
+        Arrays.fill(hp, maxHp);
+    }
+
+    public int size() {
+        return userIds.length;
+    }
+
+    public int userIdAt(int slot) {
+        return userIds[slot];
+    }
+
+    /**
+     * userId 对应的槽位，不在本局时返回 NO_SLOT。房间人数很少，线性查找比哈希更快且不装箱。
+     */
+    public int slotOf(int userId) {
+        for (int i = 0; i < userIds.length; i++) {
+            if (userIds[i] == userId) return i;
+        }
+        return NO_SLOT;
+    }
+
+    /**
+     * 玩家重连后客户端的状态包序列号从头开始，清零后才能通过 acceptStateSeq。在 WebSocket 线程上调用。
+     */
+    public void resetStateSeq(int slot) {
+        lastSeq.set(slot, 0);
+    }
+
+    /**
+     * 换上该槽位新的重连截止定时器（null 表示清除），返回之前登记的定时器，由调用方负责取消。
+     */
+    public TimingWheel.Timeout swapReconnectGrace(int slot, TimingWheel.Timeout timeout) {
+        TimingWheel.Timeout previous = reconnectGrace[slot];
+        reconnectGrace[slot] = timeout;
+        return previous;
+    }
+
+    // --- 生命值与死亡 ---
+
+    /**
+     * attackerSlot 为 NO_SLOT 表示环境伤害。攻击者与受害者相同时不造成伤害。
+     */
+    public GameRoomService.DamageResult applyDamage(int attackerSlot, int victimSlot, int amount) {
+        if (amount <= 0 || attackerSlot == victimSlot) {
+            return new GameRoomService.DamageResult(hp[victimSlot], dead[victimSlot]);
+        }
+        if (hp[victimSlot] <= 0) return new GameRoomService.DamageResult(0, true);
+
+        int left = Math.max(0, hp[victimSlot] - amount);
+        hp[victimSlot] = left;
+        boolean died = left == 0;
+        if (died && !dead[victimSlot]) {
+            dead[victimSlot] = true;
+            deathAt[victimSlot] = System.currentTimeMillis();
+            System.out.println("Player " + userIds[victimSlot] + " died. Respawn timer started.");
+        }
+        return new GameRoomService.DamageResult(left, died);
+    }
+
+    /**
+     * 回血，返回回复后的生命值。死亡玩家不回血。
+     */
+    public int heal(int slot, int amount) {
+        if (dead[slot] || amount <= 0) return hp[slot];
+        hp[slot] = Math.min(maxHp, hp[slot] + amount);
+        return hp[slot];
+    }
+
+    public void respawn(int slot) {
+        hp[slot] = maxHp;
+        dead[slot] = false;
+        deathAt[slot] = 0;
+        lastSeq.set(slot, 0);
+    }
+
+    public boolean isDead(int slot) {
+        return dead[slot];
+    }
+
+    public int getHp(int slot) {
+        return hp[slot];
+    }
+
+    // --- 战绩 ---
+
+    public void recordKill(int killerSlot, int victimSlot) {
+        if (killerSlot != NO_SLOT) kills[killerSlot]++;
+        if (victimSlot != NO_SLOT) deaths[victimSlot]++;
+    }
+
+    public int getKills(int slot) {
+        return kills[slot];
+    }
+
+    public int getDeaths(int slot) {
+        return deaths[slot];
+    }
+
+    // --- 中毒 ---
+
+    /**
+     * 中毒到 untilMs。返回 true 表示此前未中毒，调用方需要登记每秒结算的定时器。
+     */
+    public boolean poison(int slot, long untilMs) {
+        if (dead[slot]) return false;
+        boolean fresh = poisonUntil[slot] == 0;
+        poisonUntil[slot] = untilMs;
+        return fresh;
+    }
+
+    public long getPoisonUntil(int slot) {
+        return poisonUntil[slot];
+    }
+
+    public void clearPoison(int slot) {
+        poisonUntil[slot] = 0;
+    }
+
+    // --- 武器 ---
+
+    public void setWeapon(int slot, String weaponType) {
+        weapon[slot] = weaponCode(weaponType);
+    }
+
+    public String getWeapon(int slot) {
+        return WEAPONS[weapon[slot]];
+    }
+
+    /**
+     * 武器名到编号，未知类型按手枪处理。
+     */
+    public static byte weaponCode(String weaponType) {
+        for (byte i = 0; i < WEAPONS.length; i++) {
+            if (WEAPONS[i].equals(weaponType)) return i;
+        }
+        return 0;
+    }
+
+    public static String weaponName(byte code) {
+        return WEAPONS[code];
+    }
+
+    // --- 位置快照与序列号 ---
+
+    /**
+     * 丢弃过期或重复的状态包。在 WebSocket 线程上调用，同一玩家的消息由同一连接串行送达。
+     * 复活和重连会在其他线程上把序列号清零，这里用 CAS 更新，清零不会被并发到达的状态包覆盖。
+     */
+    public boolean acceptStateSeq(int slot, long seq) {
+        if (seq <= 0) return true;
+        while (true) {
+            long last = lastSeq.get(slot);
+            if (last != 0 && seq <= last) return false;
+            if (lastSeq.compareAndSet(slot, last, seq)) return true;
+        }
+    }
+
+    public void recordSnapshot(int slot, long srvTS, long cliTS, double x, double y, double vx, double vy, boolean facing, boolean onGround) {
+        snapshots[slot].record(srvTS, cliTS, x, y, vx, vy, facing, onGround);
+    }
+
+    /**
+     * 按服务器时间插值玩家位置并写入 out，没有快照时返回 false。
+     */
+    public boolean interpolateAt(int slot, long targetSrvTS, SnapshotRing.Pose out) {
+        return snapshots[slot].sample(targetSrvTS, out);
+    }
+
+    /**
+     * 最后一次上报的位置写入 out，没有快照时返回 false。
+     */
+    public boolean latestPose(int slot, SnapshotRing.Pose out) {
+        return snapshots[slot].sample(Long.MAX_VALUE, out);
+    }
+
+    // --- 检查点 ---
+
+    /**
+     * 按槽位顺序写出每名玩家的状态和最后一个位置快照（不含历史与序列号）。只在 tick 线程上调用。
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        SnapshotRing.Pose pose = new SnapshotRing.Pose();
+        for (int slot = 0; slot < userIds.length; slot++) {
+            out.writeInt(hp[slot]);
+            out.writeBoolean(dead[slot]);
+            out.writeLong(deathAt[slot]);
+            out.writeLong(poisonUntil[slot]);
+            out.writeByte(weapon[slot]);
+            out.writeInt(kills[slot]);
+            out.writeInt(deaths[slot]);
+            boolean hasPose = latestPose(slot, pose);
+            out.writeBoolean(hasPose);
+            if (hasPose) {
+                out.writeLong(pose.srvTS);
+                out.writeLong(pose.cliTS);
+                out.writeDouble(pose.x);
+                out.writeDouble(pose.y);
+                out.writeDouble(pose.vx);
+                out.writeDouble(pose.vy);
+                out.writeBoolean(pose.facing);
+                out.writeBoolean(pose.onGround);
+            }
+        }
+    }
+
+    /**
+     * 读回 writeTo 写出的状态，所有服务器时间顺延 shiftMs（停机期间不计入对局时间）。
+     * 槽位数和顺序必须与写出时一致，只在房间交给 tick 线程之前调用。
+     */
+    public void readFrom(DataInput in, long shiftMs) throws IOException {
+        for (int slot = 0; slot < userIds.length; slot++) {
+            hp[slot] = in.readInt();
+            dead[slot] = in.readBoolean();
+            long death = in.readLong();
+            deathAt[slot] = death == 0 ? 0 : death + shiftMs;
+            long poison = in.readLong();
+            poisonUntil[slot] = poison == 0 ? 0 : poison + shiftMs;
+            weapon[slot] = in.readByte();
+            kills[slot] = in.readInt();
+            deaths[slot] = in.readInt();
+            snapshots[slot].clear();
+            if (in.readBoolean()) {
+                long srvTS = in.readLong() + shiftMs;
+                long cliTS = in.readLong();
+                snapshots[slot].record(srvTS, cliTS, in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble(),
+                        in.readBoolean(), in.readBoolean());
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.csu.pixelstrikebackend.game.engine;
+
+import org.csu.pixelstrikebackend.game.geom.HitMath;
+
+/**
+ * 地图静态碰撞几何编译成的占用网格（每格一位），构建后不可变，所有房间和线程共享同一张地图的实例。
+ * 子弹每步用 raycast 沿格子走一遍（Amanatides–Woo），遇到实心格即被墙挡住。地图范围以外视为空。
+ * 线段先裁剪到网格范围再行走，离开网格即停止，单次 raycast 最多走 cols + rows 个格子，与线段长度无关。
+ */
+public final class MapCollision {
+
+    /** 没有碰撞数据的地图：raycast 永远返回 +INF */
+    public static final MapCollision EMPTY = new MapCollision(1, 1, 1, new long[1]);
+
+    private final double cellSize;
+    private final int cols, rows;
+    private final long[] bits;
+
+    private MapCollision(double cellSize, int cols, int rows, long[] bits) {
+        this.cellSize = cellSize;
+        this.cols = cols;
+        this.rows = rows;
+        this.bits = bits;
+    }
+
+    /**
+     * 线段 (ox,oy) + t*(dx,dy), t∈[0,1] 进入第一个实心格时的 t，没有碰到墙返回 +INF。起点就在墙内时返回 0。
+     * 参数含 NaN 或无穷大时返回 +INF。
+     */
+    public double raycast(double ox, double oy, double dx, double dy) {
+        if (!Double.isFinite(ox) || !Double.isFinite(oy) || !Double.isFinite(dx) || !Double.isFinite(dy)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        // 从线段进入网格的位置开始走，从未进入网格的线段不可能碰到墙
+        double tStart = HitMath.raySegmentVsAABB(ox, oy, dx, dy, 0, 0, cols * cellSize, rows * cellSize);
+        if (tStart == Double.POSITIVE_INFINITY) return Double.POSITIVE_INFINITY;
+        int cx = Math.min(cols - 1, Math.max(0, (int) Math.floor((ox + tStart * dx) / cellSize)));
+        int cy = Math.min(rows - 1, Math.max(0, (int) Math.floor((oy + tStart * dy) / cellSize)));
+        if (isSolid(cx, cy)) return tStart;
+
+        int stepX = dx > 0 ? 1 : -1, stepY = dy > 0 ? 1 : -1;
+        double tMaxX = dx == 0 ? Double.POSITIVE_INFINITY : ((dx > 0 ? cx + 1 : cx) * cellSize - ox) / dx;
+        double tMaxY = dy == 0 ? Double.POSITIVE_INFINITY : ((dy > 0 ? cy + 1 : cy) * cellSize - oy) / dy;
+        double tDeltaX = dx == 0 ? Double.POSITIVE_INFINITY : cellSize / Math.abs(dx);
+        double tDeltaY = dy == 0 ? Double.POSITIVE_INFINITY : cellSize / Math.abs(dy);
+
+        while (true) {
+            double t;
+            if (tMaxX < tMaxY) {
+                cx += stepX;
+                t = tMaxX;
+                tMaxX += tDeltaX;
+            } else {
+                cy += stepY;
+                t = tMaxY;
+                tMaxY += tDeltaY;
+            }
+            if (t > 1.0 || cx < 0 || cy < 0 || cx >= cols || cy >= rows) return Double.POSITIVE_INFINITY;
+            if (isSolid(cx, cy)) return t;
+        }
+    }
+
+    public boolean isSolidAt(double x, double y) {
+        return isSolid((int) Math.floor(x / cellSize), (int) Math.floor(y / cellSize));
+    }
+
+    private boolean isSolid(int cx, int cy) {
+        if (cx < 0 || cy < 0 || cx >= cols || cy >= rows) return false;
+        int i = cy * cols + cx;
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * 按地图尺寸和格子大小逐个矩形填充，build() 之后不再修改。
+     */
+    public static final class Builder {
+        private final double cellSize;
+        private final int cols, rows;
+        private final long[] bits;
+
+        public Builder(double width, double height, double cellSize) {
+            this.cellSize = cellSize;
+            this.cols = Math.max(1, (int) Math.ceil(width / cellSize));
+            this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+            this.bits = new long[(cols * rows + 63) >>> 6];
+        }
+
+        /** 把矩形 [x, x+w)×[y, y+h) 覆盖到的格子标为实心 */
+        public Builder solid(double x, double y, double w, double h) {
+            if (w <= 0 || h <= 0) return this;
+            int x0 = Math.max(0, (int) Math.floor(x / cellSize));
+            int y0 = Math.max(0, (int) Math.floor(y / cellSize));
+            int x1 = Math.min(cols - 1, (int) Math.ceil((x + w) / cellSize) - 1);
+            int y1 = Math.min(rows - 1, (int) Math.ceil((y + h) / cellSize) - 1);
+            for (int cy = y0; cy <= y1; cy++) {
+                for (int cx = x0; cx <= x1; cx++) {
+                    int i = cy * cols + cx;
+                    bits[i >>> 6] |= 1L << i;
+                }
+            }
+            return this;
+        }
+
+        public MapCollision build() {
+            return new MapCollision(cellSize, cols, rows, bits.clone());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.csu.pixelstrikebackend.game.engine;
+
+import java.util.Arrays;
+
+/**
+ * 房间内玩家碰撞盒的均匀网格（宽相位）。按地图尺寸切成固定大小的格子，每个 tick 在 PositionFrame 构建后重建一次，
+ * 每个格子记录与之重叠的玩家帧内下标（升序），子弹只需检测其扫过路径覆盖的格子里的玩家。
+ * 地图外的坐标归到边缘格子，重叠关系不变，因此查询结果与逐个检测所有玩家一致。
+ * 人数较少时不建网格（isActive() 为 false），调用方直接遍历整帧。
+ * 数组按需扩容并复用，构建完成后直到下一个 tick 只读，可被 ProjectileSweep 的并行分块同时读取。
+ */
+public class PlayerGrid {
+
+    private boolean active;
+    private double cellSize;
+    private int cols, rows;
+    private int[] cellStart = new int[1]; // 格子 c 的玩家位于 items[cellStart[c], cellStart[c + 1])
+    private int[] cursor = new int[0];
+    private int[] items = new int[16];
+
+    /**
+     * 用本 tick 的位置帧重建网格；帧内玩家数少于 minPlayers 时只把网格标记为不可用。
+     */
+    public void build(PositionFrame frame, double mapW, double mapH, double cellSize, int minPlayers) {
+        int n = frame.size();
+        active = n >= minPlayers;
+        if (!active) return;
+        resize(mapW, mapH, cellSize);
+        int cells = cols * rows;
+        Arrays.fill(cellStart, 0, cells + 1, 0);
+
+        // 1. 统计每个格子的玩家数
+        for (int i = 0; i < n; i++) {
+            int x0 = cellX(frame.minX(i)), x1 = cellX(frame.maxX(i));
+            int y0 = cellY(frame.minY(i)), y1 = cellY(frame.maxY(i));
+            for (int cy = y0; cy <= y1; cy++) {
+                for (int cx = x0; cx <= x1; cx++) {
+                    cellStart[cy * cols + cx + 1]++;
+                }
+            }
+        }
+        // 2. 前缀和得到每个格子的起点
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        if (items.length < cellStart[cells]) {
+            items = new int[Math.max(cellStart[cells], items.length * 2)];
+        }
+        // 3. 按帧内下标升序填入，格子内的下标天然有序
+        System.arraycopy(cellStart, 0, cursor, 0, cells);
+        for (int i = 0; i < n; i++) {
+            int x0 = cellX(frame.minX(i)), x1 = cellX(frame.maxX(i));
+            int y0 = cellY(frame.minY(i)), y1 = cellY(frame.maxY(i));
+            for (int cy = y0; cy <= y1; cy++) {
+                for (int cx = x0; cx <= x1; cx++) {
+                    items[cursor[cy * cols + cx]++] = i;
+                }
+            }
+        }
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * 横坐标所在的列，超出地图的坐标归到边缘列。
+     */
+    public int cellX(double x) {
+        int cx = (int) Math.floor(x / cellSize);
+        return cx < 0 ? 0 : Math.min(cx, cols - 1);
+    }
+
+    public int cellY(double y) {
+        int cy = (int) Math.floor(y / cellSize);
+        return cy < 0 ? 0 : Math.min(cy, rows - 1);
+    }
+
+    public int cellStart(int cell) { return cellStart[cell]; }
+    public int cellEnd(int cell) { return cellStart[cell + 1]; }
+    public int itemAt(int k) { return items[k]; }
+
+    private void resize(double mapW, double mapH, double size) {
+        int c = Math.max(1, (int) Math.ceil(mapW / size));
+        int r = Math.max(1, (int) Math.ceil(mapH / size));
+        this.cellSize = size;
+        if (c == cols && r == rows) return;
+        cols = c;
+        rows = r;
+        cellStart = new int[c * r + 1];
+        cursor = new int[c * r];
+    }
+}
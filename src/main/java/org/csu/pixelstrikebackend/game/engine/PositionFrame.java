@@ -0,0 +1,99 @@
+package org.csu.pixelstrikebackend.game.engine;
+
+import java.util.Arrays;
+
+/**
+ * 房间在某一 tick 时间点上所有存活玩家的位置与碰撞盒。
+ * 每个 tick 开始时按同一个时间戳构建一次（每名玩家只插值一次），本 tick 内子弹、拾取、环境伤害等碰撞查询都读它，
+ * 构建完成后直到下一个 tick 都不再修改，因此可以被 ProjectileSweep 的并行分块同时读取。
+ * 数组按需扩容并复用，只在所属房间的 tick 线程上构建。
+ */
+public class PositionFrame {
+
+    public static final int ABSENT = -1;
+
+    // 玩家碰撞盒相对于上报坐标的偏移和尺寸
+    public static final double HB_OFF_X = 80.0;
+    public static final double HB_OFF_Y = 20.0;
+    public static final double HB_W = 86.0;
+    public static final double HB_H = 160.0;
+
+    private final SnapshotRing.Pose pose = new SnapshotRing.Pose();
+
+    private long timeMs;
+    private int count;
+    private int[] slots = new int[8];
+    private int[] userIds = new int[8];
+    private double[] x = new double[8], y = new double[8];
+    private double[] minX = new double[8], minY = new double[8], maxX = new double[8], maxY = new double[8];
+    private int[] indexBySlot = new int[8];
+
+    /**
+     * 以 timeMs 为准插值每个存活且有位置记录的玩家，按槽位顺序写入。
+     */
+    public void build(GameWorld world, long timeMs) {
+        int n = world.size();
+        if (slots.length < n) grow(n);
+        this.timeMs = timeMs;
+        count = 0;
+        Arrays.fill(indexBySlot, 0, n, ABSENT);
+        for (int slot = 0; slot < n; slot++) {
+            if (world.isDead(slot) || !world.interpolateAt(slot, timeMs, pose)) continue;
+            int i = count++;
+            slots[i] = slot;
+            userIds[i] = world.userIdAt(slot);
+            x[i] = pose.x;
+            y[i] = pose.y;
+            minX[i] = pose.x + HB_OFF_X;
+            minY[i] = pose.y + HB_OFF_Y;
+            maxX[i] = minX[i] + HB_W;
+            maxY[i] = minY[i] + HB_H;
+            indexBySlot[slot] = i;
+        }
+    }
+
+    public long getTimeMs() {
+        return timeMs;
+    }
+
+    /**
+     * 帧内的玩家数量，下标范围 [0, size())。
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 槽位在帧内的下标，玩家已死亡或还没有位置记录时返回 ABSENT。
+     */
+    public int indexOf(int slot) {
+        return slot < 0 || slot >= indexBySlot.length ? ABSENT : indexBySlot[slot];
+    }
+
+    public int slotAt(int i) { return slots[i]; }
+    public int userIdAt(int i) { return userIds[i]; }
+    public double getX(int i) { return x[i]; }
+    public double getY(int i) { return y[i]; }
+    public double minX(int i) { return minX[i]; }
+    public double minY(int i) { return minY[i]; }
+    public double maxX(int i) { return maxX[i]; }
+    public double maxY(int i) { return maxY[i]; }
+
+    // 供 HitMath 批量检测直接读取的底层数组，有效范围 [0, size())
+    double[] minXs() { return minX; }
+    double[] minYs() { return minY; }
+    double[] maxXs() { return maxX; }
+    double[] maxYs() { return maxY; }
+
+    private void grow(int n) {
+        slots = new int[n];
+        userIds = new int[n];
+        x = new double[n];
+        y = new double[n];
+        minX = new double[n];
+        minY = new double[n];
+        maxX = new double[n];
+        maxY = new double[n];
+        indexBySlot = new int[n];
+    }
+}
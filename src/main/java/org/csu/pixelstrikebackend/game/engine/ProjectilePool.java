@@ -0,0 +1,135 @@
+package org.csu.pixelstrikebackend.game.engine;
+
+import java.util.Arrays;
+
+/**
+ * 单个房间的飞行中子弹，按列存放在基本类型数组中（位置、速度、发射点、射程、伤害、射手槽位）。
+ * 下标 [0, size()) 连续存放，移除时把最后一颗搬到空位（O(1)，顺序会变），数组只在容量不够时翻倍，
+ * 稳定运行后发射、推进、移除都不分配对象。每名玩家同时在飞的子弹数有上限，超出的发射直接丢弃。
+ * 只在所属房间的 tick 线程上访问（并行推进时各块只写自己负责的下标）。
+ */
+public class ProjectilePool {
+
+    private final int maxPerPlayer;
+    private final int[] liveByShooter; // 按射手槽位统计在飞的子弹数
+
+    private int size;
+    private int[] shooterSlot;
+    private double[] x, y, vx, vy;
+    private double[] originX, originY;
+    private double[] rangeSq;
+    private int[] damage;
+    private byte[] weapon;
+
+    public ProjectilePool(int players, int initialCapacity, int maxPerPlayer) {
+        this.maxPerPlayer = maxPerPlayer;
+        this.liveByShooter = new int[players];
+        int cap = Math.max(8, initialCapacity);
+        shooterSlot = new int[cap];
+        x = new double[cap];
+        y = new double[cap];
+        vx = new double[cap];
+        vy = new double[cap];
+        originX = new double[cap];
+        originY = new double[cap];
+        rangeSq = new double[cap];
+        damage = new int[cap];
+        weapon = new byte[cap];
+    }
+
+    /**
+     * 从 (ox, oy) 以速度 (velX, velY) 发射一颗子弹，返回其下标；射手在飞的子弹已达上限时返回 -1。
+     */
+    public int spawn(int shooter, double ox, double oy, double velX, double velY, double range, int dmg, byte weaponCode) {
+        if (liveByShooter[shooter] >= maxPerPlayer) return -1;
+        if (size == x.length) grow();
+        int i = size++;
+        shooterSlot[i] = shooter;
+        x[i] = ox;
+        y[i] = oy;
+        vx[i] = velX;
+        vy[i] = velY;
+        originX[i] = ox;
+        originY[i] = oy;
+        rangeSq[i] = range * range;
+        damage[i] = dmg;
+        weapon[i] = weaponCode;
+        liveByShooter[shooter]++;
+        return i;
+    }
+
+    /**
+     * 移除下标 i：最后一颗子弹搬到 i。同一步内移除多颗时应按下标从大到小进行。
+     */
+    public void remove(int i) {
+        liveByShooter[shooterSlot[i]]--;
+        int last = --size;
+        if (i != last) {
+            shooterSlot[i] = shooterSlot[last];
+            x[i] = x[last];
+            y[i] = y[last];
+            vx[i] = vx[last];
+            vy[i] = vy[last];
+            originX[i] = originX[last];
+            originY[i] = originY[last];
+            rangeSq[i] = rangeSq[last];
+            damage[i] = damage[last];
+            weapon[i] = weapon[last];
+        }
+    }
+
+    public void clear() {
+        size = 0;
+        Arrays.fill(liveByShooter, 0);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void advance(int i, double deltaTime) {
+        x[i] += vx[i] * deltaTime;
+        y[i] += vy[i] * deltaTime;
+    }
+
+    /**
+     * 距发射点的飞行距离超过射程。
+     */
+    public boolean isOutOfRange(int i) {
+        double dx = x[i] - originX[i], dy = y[i] - originY[i];
+        return dx * dx + dy * dy > rangeSq[i];
+    }
+
+    /**
+     * 从检查点恢复时把子弹放回飞行途中的位置。
+     */
+    public void setPosition(int i, double px, double py) {
+        x[i] = px;
+        y[i] = py;
+    }
+
+    public int getShooterSlot(int i) { return shooterSlot[i]; }
+    public double getX(int i) { return x[i]; }
+    public double getY(int i) { return y[i]; }
+    public double getVelocityX(int i) { return vx[i]; }
+    public double getVelocityY(int i) { return vy[i]; }
+    public double getOriginX(int i) { return originX[i]; }
+    public double getOriginY(int i) { return originY[i]; }
+    public double getRange(int i) { return Math.sqrt(rangeSq[i]); }
+    public int getDamage(int i) { return damage[i]; }
+    public byte getWeapon(int i) { return weapon[i]; }
+
+    private void grow() {
+        int cap = x.length * 2;
+        shooterSlot = Arrays.copyOf(shooterSlot, cap);
+        x = Arrays.copyOf(x, cap);
+        y = Arrays.copyOf(y, cap);
+        vx = Arrays.copyOf(vx, cap);
+        vy = Arrays.copyOf(vy, cap);
+        originX = Arrays.copyOf(originX, cap);
+        originY = Arrays.copyOf(originY, cap);
+        rangeSq = Arrays.copyOf(rangeSq, cap);
+        damage = Arrays.copyOf(damage, cap);
+        weapon = Arrays.copyOf(weapon, cap);
+    }
+}
@@ -0,0 +1,185 @@
+package org.csu.pixelstrikebackend.game.engine;
+
+import org.csu.pixelstrikebackend.game.geom.HitMath;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 单个房间每一步的子弹推进与命中检测（只检测，不结算）。
+ * 推进阶段只读本 tick 的 PositionFrame、每颗子弹只写自己的结果槽和 ProjectilePool 中自己的下标，
+ * 因此大房间可以把子弹切块交给 ForkJoinPool 并行执行；小房间在 tick 线程上顺序执行同一段代码。
+ * 结算由调用方在 tick 线程上按子弹下标顺序进行，结果与顺序路径一致，与分块方式无关。
+ * 网格可用时只检测子弹扫过路径覆盖的格子里的玩家，结果与遍历整帧相同（仍取帧内下标最小的命中者）；
+ * 网格未启用时每块子弹对整帧调用一次 HitMath.segmentsVsBoxes，得到每颗子弹对每名玩家的 tEnter。
+ * 每颗子弹先沿地图碰撞网格走一遍，只有在撞墙之前进入的玩家才算命中，撞墙的子弹由调用方移除。
+ * 数组按需扩容并复用，只在所属房间的 tick 线程上调用。
+ */
+public class ProjectileSweep {
+
+    public static final int NO_HIT = -1;
+
+    private PositionFrame frame;
+    private PlayerGrid grid;
+    private MapCollision terrain;
+
+    // --- 每颗子弹的结果 ---
+    private double[] oldX = new double[64], oldY = new double[64];
+    private double[] stepX = new double[64], stepY = new double[64]; // 本步位移
+    private double[] wallT = new double[64]; // 本步撞墙时的 t，没有撞墙为 +INF
+    private int[] hitIndex = new int[64];
+    private double[] tEnter = new double[256]; // 网格未启用时第 i 颗子弹对帧内第 v 名玩家的结果位于 [i * frame.size() + v]
+
+    // --- 本步待移除的子弹下标（升序） ---
+    private int[] removed = new int[64];
+    private int removedCount;
+
+    /**
+     * 推进全部子弹并记录每颗子弹命中的第一个受害者（帧内下标）。pool 为 null 时在当前线程顺序执行。
+     */
+    public void sweep(ProjectilePool projectiles, PositionFrame frame, PlayerGrid grid, MapCollision terrain,
+                      double deltaTime, ForkJoinPool pool, int chunkSize) {
+        this.frame = frame;
+        this.grid = grid;
+        this.terrain = terrain;
+        removedCount = 0;
+        int n = projectiles.size();
+        if (oldX.length < n) {
+            int cap = Math.max(n, oldX.length * 2);
+            oldX = new double[cap];
+            oldY = new double[cap];
+            stepX = new double[cap];
+            stepY = new double[cap];
+            wallT = new double[cap];
+            hitIndex = new int[cap];
+            removed = new int[cap];
+        }
+        if (!grid.isActive() && tEnter.length < n * frame.size()) {
+            tEnter = new double[Math.max(n * frame.size(), tEnter.length * 2)];
+        }
+        if (pool == null || n <= chunkSize) {
+            sweepRange(projectiles, deltaTime, 0, n);
+        } else {
+            pool.invoke(new Chunk(projectiles, deltaTime, 0, n, Math.max(1, chunkSize)));
+        }
+    }
+
+    public int getHit(int i) {
+        return hitIndex[i];
+    }
+
+    /**
+     * 第 i 颗子弹本步撞到了墙。
+     */
+    public boolean isBlocked(int i) {
+        return wallT[i] <= 1.0;
+    }
+
+    /**
+     * 从帧内下标 from 开始按顺序查找第 i 颗子弹本步扫过路径命中的第一个受害者。
+     * 结算阶段发现原命中对象已在本步被打死时，用它继续向后查找，与顺序路径“跳过已死亡玩家”的语义一致。
+     */
+    public int firstHit(int i, ProjectilePool projectiles, int from) {
+        int shooter = projectiles.getShooterSlot(i);
+        PositionFrame f = frame;
+        double max = Math.min(1.0, wallT[i]);
+        if (grid.isActive()) {
+            return firstHitInGrid(oldX[i], oldY[i], stepX[i], stepY[i], max, shooter, from);
+        }
+        int m = f.size(), row = i * m;
+        for (int v = from; v < m; v++) {
+            if (f.slotAt(v) == shooter) continue;
+            if (tEnter[row + v] <= max) {
+                return v;
+            }
+        }
+        return NO_HIT;
+    }
+
+    /**
+     * 只检测线段包围盒覆盖的格子；格子内下标升序，遇到不小于当前最优命中的下标即可跳过该格剩余部分。
+     */
+    private int firstHitInGrid(double x0, double y0, double dx, double dy, double max, int shooter, int from) {
+        PositionFrame f = frame;
+        PlayerGrid g = grid;
+        int cx0 = g.cellX(Math.min(x0, x0 + dx)), cx1 = g.cellX(Math.max(x0, x0 + dx));
+        int cy0 = g.cellY(Math.min(y0, y0 + dy)), cy1 = g.cellY(Math.max(y0, y0 + dy));
+        int best = Integer.MAX_VALUE;
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int cell = cy * g.getCols() + cx;
+                for (int k = g.cellStart(cell), end = g.cellEnd(cell); k < end; k++) {
+                    int v = g.itemAt(k);
+                    if (v >= best) break;
+                    if (v < from || f.slotAt(v) == shooter) continue;
+                    if (HitMath.raySegmentVsAABB(x0, y0, dx, dy, f.minX(v), f.minY(v), f.maxX(v), f.maxY(v)) <= max) {
+                        best = v;
+                        break;
+                    }
+                }
+            }
+        }
+        return best == Integer.MAX_VALUE ? NO_HIT : best;
+    }
+
+    /**
+     * 结算阶段按下标升序登记要移除的子弹，结算结束后调用 removeMarked 一次性移除。
+     */
+    public void markRemoved(int i) {
+        removed[removedCount++] = i;
+    }
+
+    /**
+     * 按下标从大到小做交换移除：比当前下标大的位置要么已移除，要么是搬来的未登记子弹，结果与逐个查找移除一致。
+     */
+    public void removeMarked(ProjectilePool projectiles) {
+        for (int k = removedCount - 1; k >= 0; k--) {
+            projectiles.remove(removed[k]);
+        }
+        removedCount = 0;
+    }
+
+    private void sweepRange(ProjectilePool projectiles, double deltaTime, int from, int to) {
+        for (int i = from; i < to; i++) {
+            oldX[i] = projectiles.getX(i);
+            oldY[i] = projectiles.getY(i);
+            projectiles.advance(i, deltaTime);
+            stepX[i] = projectiles.getX(i) - oldX[i];
+            stepY[i] = projectiles.getY(i) - oldY[i];
+            wallT[i] = terrain.raycast(oldX[i], oldY[i], stepX[i], stepY[i]);
+        }
+        if (!grid.isActive()) {
+            PositionFrame f = frame;
+            HitMath.segmentsVsBoxes(oldX, oldY, stepX, stepY, from, to,
+                    f.minXs(), f.minYs(), f.maxXs(), f.maxYs(), f.size(), tEnter);
+        }
+        for (int i = from; i < to; i++) {
+            hitIndex[i] = firstHit(i, projectiles, 0);
+        }
+    }
+
+    private final class Chunk extends RecursiveAction {
+        private final ProjectilePool projectiles;
+        private final double deltaTime;
+        private final int from, to, chunkSize;
+
+        Chunk(ProjectilePool projectiles, double deltaTime, int from, int to, int chunkSize) {
+            this.projectiles = projectiles;
+            this.deltaTime = deltaTime;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                sweepRange(projectiles, deltaTime, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Chunk(projectiles, deltaTime, from, mid, chunkSize),
+                    new Chunk(projectiles, deltaTime, mid, to, chunkSize));
+        }
+    }
+}
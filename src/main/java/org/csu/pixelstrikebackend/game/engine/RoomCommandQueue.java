@@ -0,0 +1,64 @@
+package org.csu.pixelstrikebackend.game.engine;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 房间入站命令队列：多生产者（WebSocket 线程、定时任务）单消费者（房间所属的 TickWorker）。
+ * 无锁实现（Vyukov 链表队列）：生产者只做一次 getAndSet，消费者在每一步开始时按入队顺序执行全部命令。
+ * 这样房间的游戏状态只会被 tick 线程修改，不再需要并发容器和 synchronized。
+ */
+public class RoomCommandQueue {
+
+    private static final class Node {
+        Runnable command;
+        volatile Node next;
+        Node(Runnable command) { this.command = command; }
+    }
+
+    private final AtomicReference<Node> tail;
+    private Node head; // 只由消费者线程访问
+
+    public RoomCommandQueue() {
+        Node stub = new Node(null);
+        this.head = stub;
+        this.tail = new AtomicReference<>(stub);
+    }
+
+    /**
+     * 入队一条命令，可在任意线程调用。
+     */
+    public void offer(Runnable command) {
+        Node node = new Node(command);
+        Node prev = tail.getAndSet(node);
+        prev.next = node;
+    }
+
+    /**
+     * 按顺序执行当前可见的全部命令，只能在房间的 tick 线程上调用。返回执行的条数。
+     * 单条命令异常不会中断后续命令。
+     */
+    public int drain() {
+        int count = 0;
+        Node next;
+        while ((next = head.next) != null) {
+            Runnable command = next.command;
+            next.command = null;
+            head = next;
+            count++;
+            try {
+                command.run();
+            } catch (Exception e) {
+                System.err.println("Error executing room command: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 只能在消费者线程上调用。
+     */
+    public boolean isEmpty() {
+        return head.next == null;
+    }
+}
@@ -0,0 +1,11 @@
+package org.csu.pixelstrikebackend.game.engine;
+
+import org.csu.pixelstrikebackend.game.service.GameManager;
+
+/**
+ * 单个房间推进一个固定步长的逻辑，由 GameLoopService 提供。
+ */
+@FunctionalInterface
+public interface RoomStepper {
+    void step(GameManager.ActiveGame game, double deltaSeconds);
+}
@@ -0,0 +1,13 @@
+package org.csu.pixelstrikebackend.game.engine;
+
+/**
+ * 房间内的定时事件类型，定时器参数 arg 一般为玩家在 GameWorld 中的槽位（与玩家无关的事件为 -1）。
+ */
+public enum RoomTimer {
+    RESPAWN,        // 玩家复活
+    POISON_TICK,    // 中毒每秒结算一次
+    MATCH_END,      // 对局到达最长时长
+    SUPPLY_SPAWN,   // 刷新补给品
+    SUPPLY_EXPIRE,  // 补给品到期移除，arg 为补给品 ID
+    RECONNECT_GRACE // 等待断线玩家重连的截止时间，arg 为 -1 时检查全部玩家（从检查点恢复的对局）
+}
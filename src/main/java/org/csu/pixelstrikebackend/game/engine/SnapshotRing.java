@@ -0,0 +1,121 @@
+package org.csu.pixelstrikebackend.game.engine;
+
+/**
+ * 单个玩家的位置快照历史。固定容量的环形缓冲，各字段存放在平行的基本类型数组中，写满后覆盖最旧的一条；
+ * 按服务器时间二分查找相邻两条并插值，结果写入调用方提供的 Pose，记录和查询都不分配对象。
+ * 只在所属房间的 tick 线程上访问，不加锁。
+ */
+public class SnapshotRing {
+
+    private static final byte FACING = 1;
+    private static final byte ON_GROUND = 2;
+
+    private final int mask;
+    private final long[] srvTS;
+    private final long[] cliTS;
+    private final double[] x, y, vx, vy;
+    private final byte[] flags;
+
+    private long written; // 累计写入条数，最新一条位于 (written - 1) & mask
+    private int size;
+
+    /**
+     * capacity 向上取整到 2 的幂。
+     */
+    public SnapshotRing(int capacity) {
+        int cap = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = cap - 1;
+        this.srvTS = new long[cap];
+        this.cliTS = new long[cap];
+        this.x = new double[cap];
+        this.y = new double[cap];
+        this.vx = new double[cap];
+        this.vy = new double[cap];
+        this.flags = new byte[cap];
+    }
+
+    public void clear() {
+        written = 0;
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void record(long srv, long cli, double px, double py, double pvx, double pvy, boolean facing, boolean onGround) {
+        // 二分查找要求时间单调；系统时钟回拨时沿用上一条的时间
+        if (size > 0) srv = Math.max(srv, srvTS[physical(size - 1)]);
+        int i = (int) (written & mask);
+        srvTS[i] = srv;
+        cliTS[i] = cli;
+        x[i] = px;
+        y[i] = py;
+        vx[i] = pvx;
+        vy[i] = pvy;
+        flags[i] = (byte) ((facing ? FACING : 0) | (onGround ? ON_GROUND : 0));
+        written++;
+        if (size <= mask) size++;
+    }
+
+    /**
+     * 按服务器时间在相邻两条快照之间插值并写入 out。早于最旧一条或晚于最新一条时取端点，没有快照时返回 false。
+     */
+    public boolean sample(long target, Pose out) {
+        if (size == 0) return false;
+        // 第一条 srvTS > target 的逻辑下标
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (srvTS[physical(mid)] <= target) lo = mid + 1;
+            else hi = mid;
+        }
+        if (lo == 0) {
+            copy(physical(0), out);
+        } else if (lo == size) {
+            copy(physical(size - 1), out);
+        } else {
+            int a = physical(lo - 1), b = physical(lo);
+            double t = (target - srvTS[a]) / (double) (srvTS[b] - srvTS[a]);
+            lerp(a, b, t, out);
+        }
+        return true;
+    }
+
+    // 逻辑下标（0 为最旧）到数组下标
+    private int physical(int logical) {
+        return (int) ((written - size + logical) & mask);
+    }
+
+    private void copy(int i, Pose out) {
+        out.srvTS = srvTS[i];
+        out.cliTS = cliTS[i];
+        out.x = x[i];
+        out.y = y[i];
+        out.vx = vx[i];
+        out.vy = vy[i];
+        out.facing = (flags[i] & FACING) != 0;
+        out.onGround = (flags[i] & ON_GROUND) != 0;
+    }
+
+    private void lerp(int a, int b, double t, Pose out) {
+        out.srvTS = (long) (srvTS[a] + (srvTS[b] - srvTS[a]) * t);
+        out.cliTS = (long) (cliTS[a] + (cliTS[b] - cliTS[a]) * t);
+        out.x = x[a] + (x[b] - x[a]) * t;
+        out.y = y[a] + (y[b] - y[a]) * t;
+        out.vx = vx[a] + (vx[b] - vx[a]) * t;
+        out.vy = vy[a] + (vy[b] - vy[a]) * t;
+        byte f = t < 0.5 ? flags[a] : flags[b];
+        out.facing = (f & FACING) != 0;
+        out.onGround = (f & ON_GROUND) != 0;
+    }
+
+    /**
+     * 插值结果。由调用方持有并复用。
+     */
+    public static final class Pose {
+        public long srvTS, cliTS;
+        public double x, y, vx, vy;
+        public boolean facing, onGround;
+    }
+}
@@ -0,0 +1,81 @@
+package org.csu.pixelstrikebackend.game.engine;
+
+import org.csu.pixelstrikebackend.game.model.SupplyDrop;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 单个房间的补给品：按地图刷新表挑选位置和类型，记录场上的补给品（按刷新顺序），
+ * 场上数量达到上限时跳过本次刷新；过期由房间时间轮上的 SUPPLY_EXPIRE 事件触发。
+ * 拾取消息带着补给品 ID，按 ID 取出后只需与拾取者碰撞盒做一次距离判断。
+ * 补给品 ID 由本房间的计数器分配，只在本局内唯一。只在所属房间的 tick 线程上访问。
+ */
+public class SupplyDirector {
+
+    private final SupplySpawnTable table;
+    private final int maxLive;
+    private final double pickupRadius;
+    private long nextId = 1;
+    private final Map<Long, SupplyDrop> live = new LinkedHashMap<>();
+
+    public SupplyDirector(SupplySpawnTable table, int maxLive, double pickupRadius) {
+        this.table = table;
+        this.maxLive = maxLive;
+        this.pickupRadius = pickupRadius;
+    }
+
+    /**
+     * 随机挑一个位置和类型刷新一个补给品；刷新表为空或场上已达上限时返回 null。
+     */
+    public SupplyDrop spawn(Random random) {
+        if (table.isEmpty() || live.size() >= maxLive) return null;
+        int point = random.nextInt(table.pointCount());
+        String type = table.getType(random.nextInt(table.typeCount()));
+        SupplyDrop drop = new SupplyDrop(nextId++, type, table.getX(point), table.getY(point));
+        live.put(drop.getId(), drop);
+        return drop;
+    }
+
+    /**
+     * 从检查点恢复时按原 ID 放回，之后分配的 ID 从其后继续。
+     */
+    public SupplyDrop restore(long id, String type, double x, double y) {
+        nextId = Math.max(nextId, id + 1);
+        SupplyDrop drop = new SupplyDrop(id, type, x, y);
+        live.put(id, drop);
+        return drop;
+    }
+
+    /**
+     * 玩家碰撞盒 [minX, maxX]×[minY, maxY] 认领补给品 id：补给品仍在场上且距碰撞盒不超过拾取半径时移除并返回，
+     * 否则返回 null（已被别人拿走、ID 无效或离得太远）。
+     */
+    public SupplyDrop claim(long id, double minX, double minY, double maxX, double maxY) {
+        SupplyDrop drop = live.get(id);
+        if (drop == null) return null;
+        // 补给点到碰撞盒最近点的距离
+        double dx = drop.getX() - Math.max(minX, Math.min(drop.getX(), maxX));
+        double dy = drop.getY() - Math.max(minY, Math.min(drop.getY(), maxY));
+        if (dx * dx + dy * dy > pickupRadius * pickupRadius) return null;
+        live.remove(id);
+        return drop;
+    }
+
+    /**
+     * 拾取或过期时移除，已经不在场上时返回 null。
+     */
+    public SupplyDrop remove(long id) {
+        return live.remove(id);
+    }
+
+    public Collection<SupplyDrop> active() {
+        return live.values();
+    }
+
+    public int size() {
+        return live.size();
+    }
+}
@@ -0,0 +1,34 @@
+package org.csu.pixelstrikebackend.game.engine;
+
+import java.util.List;
+
+/**
+ * 一张地图的补给刷新表：可刷新的位置和可刷新的补给类型，从地图文件加载后不可变，同一地图的房间共享。
+ */
+public final class SupplySpawnTable {
+
+    public static final SupplySpawnTable EMPTY = new SupplySpawnTable(List.of(), List.of());
+
+    private final double[] xs, ys;
+    private final String[] types;
+
+    public SupplySpawnTable(List<double[]> points, List<String> types) {
+        this.xs = new double[points.size()];
+        this.ys = new double[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            xs[i] = points.get(i)[0];
+            ys[i] = points.get(i)[1];
+        }
+        this.types = types.toArray(new String[0]);
+    }
+
+    public boolean isEmpty() {
+        return xs.length == 0 || types.length == 0;
+    }
+
+    public int pointCount() { return xs.length; }
+    public double getX(int i) { return xs[i]; }
+    public double getY(int i) { return ys[i]; }
+    public int typeCount() { return types.length; }
+    public String getType(int i) { return types[i]; }
+}
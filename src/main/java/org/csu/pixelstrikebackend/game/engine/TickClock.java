@@ -0,0 +1,144 @@
+package org.csu.pixelstrikebackend.game.engine;
+
+/**
+ * 单个房间的固定步长时钟（accumulator 模式）。
+ * 每次被工作线程唤醒时用 System.nanoTime() 累加真实流逝的时间，再按固定步长切分出需要执行的步数；
+ * 追帧步数有上限，超出部分直接丢弃，避免 GC 停顿后一次性补跑大量步导致子弹“瞬移”。
+ * 步长可由 TickRateGovernor 在过载时调低频率（60Hz → 30Hz → 20Hz），余量充足时再恢复。
+ * 只在所属 TickWorker 线程上写入，计数字段用 volatile 供监控线程读取。
+ */
+public class TickClock {
+
+    private volatile long stepNanos;
+    private volatile int rateLevel; // 0 为满频，数值越大频率越低
+    private final int maxCatchUpSteps;
+
+    private long lastNanos = -1;
+    private long accumulatorNanos;
+
+    // --- 统计 ---
+    private volatile long steps;            // 已执行的步数
+    private volatile long frames;           // 至少执行了一步的唤醒次数
+    private volatile long lateFrames;       // 唤醒时已迟到半个步长以上的次数
+    private volatile long droppedSteps;     // 因超过追帧上限而丢弃的步数
+    private volatile long maxLatenessNanos;
+    private volatile long overrunSteps;     // 单步耗时超过步长预算的次数
+    private volatile long maxOverrunNanos;
+    private volatile long avgStepNanos;
+
+    public TickClock(long stepMs, int maxCatchUpSteps) {
+        this.stepNanos = stepMs * 1_000_000L;
+        this.maxCatchUpSteps = Math.max(1, maxCatchUpSteps);
+    }
+
+    /**
+     * 累加到 nowNanos 为止流逝的时间，返回本次需要执行的步数（已按追帧上限截断）。
+     */
+    public int advance(long nowNanos) {
+        if (lastNanos < 0) {
+            // 首次唤醒立即执行一步
+            accumulatorNanos = stepNanos;
+        } else {
+            accumulatorNanos += nowNanos - lastNanos;
+        }
+        lastNanos = nowNanos;
+        if (accumulatorNanos < stepNanos) return 0;
+
+        frames++;
+        long lateness = accumulatorNanos - stepNanos;
+        if (lateness > stepNanos / 2) lateFrames++;
+        if (lateness > maxLatenessNanos) maxLatenessNanos = lateness;
+
+        long due = accumulatorNanos / stepNanos;
+        if (due > maxCatchUpSteps) {
+            droppedSteps += due - maxCatchUpSteps;
+            due = maxCatchUpSteps;
+            // 丢弃的时间不再追赶，只保留不足一步的余量
+            accumulatorNanos = accumulatorNanos % stepNanos + due * stepNanos;
+        }
+        accumulatorNanos -= due * stepNanos;
+        return (int) due;
+    }
+
+    /**
+     * 房间从休眠中恢复时调用：休眠期间流逝的时间不补跑，下一次唤醒立即执行一步。
+     */
+    public void reset() {
+        lastNanos = -1;
+        accumulatorNanos = 0;
+    }
+
+    /**
+     * 记录单步的实际耗时，超过步长即视为超预算。
+     */
+    public void recordStep(long costNanos) {
+        steps++;
+        avgStepNanos = steps == 1 ? costNanos : (avgStepNanos * 15 + costNanos) / 16;
+        long overrun = costNanos - stepNanos;
+        if (overrun > 0) {
+            overrunSteps++;
+            if (overrun > maxOverrunNanos) maxOverrunNanos = overrun;
+        }
+    }
+
+    /**
+     * 距离下一步到期还有多少纳秒，已到期则返回 0。
+     */
+    public long nanosUntilNextStep(long nowNanos) {
+        if (lastNanos < 0) return 0;
+        long pending = accumulatorNanos + (nowNanos - lastNanos);
+        return Math.max(0, stepNanos - pending);
+    }
+
+    /**
+     * 切换到另一档频率。累积的时间保留，下一次唤醒按新步长切分。
+     */
+    public void setRate(int level, long stepNanos) {
+        this.rateLevel = level;
+        this.stepNanos = stepNanos;
+    }
+
+    public int getRateLevel() {
+        return rateLevel;
+    }
+
+    public long getAvgStepNanos() {
+        return avgStepNanos;
+    }
+
+    public double getStepSeconds() {
+        return stepNanos / 1_000_000_000.0;
+    }
+
+    public long getStepNanos() {
+        return stepNanos;
+    }
+
+    public Stats snapshotStats(Long gameId, int worker, boolean hibernating) {
+        return new Stats(gameId, worker, hibernating, rateLevel, stepNanos, steps, frames, lateFrames, droppedSteps,
+                maxLatenessNanos, overrunSteps, maxOverrunNanos, avgStepNanos);
+    }
+
+    public static final class Stats {
+        public final Long gameId;
+        public final int worker;
+        public final boolean hibernating;
+        public final int rateLevel;
+        public final long stepMicros;
+        public final long steps;
+        public final long frames;
+        public final long lateFrames;
+        public final long droppedSteps;
+        public final long maxLatenessMicros;
+        public final long overrunSteps;
+        public final long maxOverrunMicros;
+        public final long avgStepMicros;
+        public Stats(Long gameId, int worker, boolean hibernating, int rateLevel, long stepNanos, long steps, long frames, long lateFrames, long droppedSteps,
+                     long maxLatenessNanos, long overrunSteps, long maxOverrunNanos, long avgStepNanos) {
+            this.gameId = gameId; this.worker = worker; this.hibernating = hibernating; this.rateLevel = rateLevel; this.stepMicros = stepNanos / 1000;
+            this.steps = steps; this.frames = frames; this.lateFrames = lateFrames; this.droppedSteps = droppedSteps;
+            this.maxLatenessMicros = maxLatenessNanos / 1000; this.overrunSteps = overrunSteps;
+            this.maxOverrunMicros = maxOverrunNanos / 1000; this.avgStepMicros = avgStepNanos / 1000;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.csu.pixelstrikebackend.game.engine;
+
+import org.csu.pixelstrikebackend.game.service.GameManager;
+
+import java.util.List;
+
+/**
+ * 单个 TickWorker 的降频控制器。
+ * 按固定窗口统计线程的忙碌占比和迟到帧比例：过载时按“每秒 tick 开销”从大到小逐个把房间降一档
+ * （如 60Hz → 30Hz → 20Hz），直到预计占比回到阈值以下；有余量时每个窗口最多恢复一个房间，
+ * 且只在预计恢复后仍低于恢复阈值时才恢复，避免在两档之间来回抖动。
+ * 降频的房间同时会丢弃非关键广播（见 ActiveGame#shedNonCritical）。只在所属 TickWorker 线程上调用。
+ */
+public class TickRateGovernor {
+
+    private final long[] tierNanos; // 下标即档位，0 为满频
+    private final long windowNanos;
+    private final double overloadRatio;
+    private final double recoverRatio;
+    private final long lateThresholdNanos;
+
+    private long windowStart = -1;
+    private long busyNanos;
+    private int frames;
+    private int lateFrames;
+
+    // --- 统计 ---
+    private volatile double utilization;
+    private volatile long degrades;
+    private volatile long recovers;
+
+    public TickRateGovernor(long[] tierMs, long windowMs, double overloadRatio, double recoverRatio) {
+        this.tierNanos = new long[tierMs.length];
+        for (int i = 0; i < tierMs.length; i++) {
+            this.tierNanos[i] = tierMs[i] * 1_000_000L;
+        }
+        this.windowNanos = windowMs * 1_000_000L;
+        this.overloadRatio = overloadRatio;
+        this.recoverRatio = recoverRatio;
+        this.lateThresholdNanos = tierNanos[0] / 2;
+    }
+
+    /**
+     * 记录一帧：本帧耗时和相对计划时间的迟到量。
+     */
+    public void recordFrame(long startNanos, long costNanos, long latenessNanos) {
+        if (windowStart < 0) windowStart = startNanos;
+        busyNanos += costNanos;
+        frames++;
+        if (latenessNanos > lateThresholdNanos) lateFrames++;
+    }
+
+    /**
+     * 窗口结束时调整房间频率。线程忙碌占比过高，或迟到帧过多（宿主机 CPU 被其他进程挤占时占比不一定高）都视为过载。
+     */
+    public void evaluate(long nowNanos, List<GameManager.ActiveGame> rooms) {
+        if (windowStart < 0 || nowNanos - windowStart < windowNanos) return;
+        double util = (double) busyNanos / (nowNanos - windowStart);
+        boolean late = frames > 0 && lateFrames * 4 > frames;
+        utilization = util;
+        windowStart = nowNanos;
+        busyNanos = 0;
+        frames = 0;
+        lateFrames = 0;
+
+        if (util > overloadRatio) {
+            double projected = util;
+            GameManager.ActiveGame room;
+            while (projected > overloadRatio && (room = heaviest(rooms)) != null) {
+                int level = room.clock.getRateLevel();
+                projected -= costPerSecond(room, level) - costPerSecond(room, level + 1);
+                degrade(room, level);
+            }
+        } else if (late) {
+            // 迟到但线程不忙，无法估算降频收益，每个窗口只降一个房间
+            GameManager.ActiveGame room = heaviest(rooms);
+            if (room != null) degrade(room, room.clock.getRateLevel());
+        } else if (util < recoverRatio) {
+            GameManager.ActiveGame room = mostDegraded(rooms);
+            if (room == null) return;
+            int level = room.clock.getRateLevel();
+            double extra = costPerSecond(room, level - 1) - costPerSecond(room, level);
+            if (util + extra < recoverRatio) {
+                room.clock.setRate(level - 1, tierNanos[level - 1]);
+                recovers++;
+            }
+        }
+    }
+
+    private void degrade(GameManager.ActiveGame room, int level) {
+        room.clock.setRate(level + 1, tierNanos[level + 1]);
+        degrades++;
+    }
+
+    public long getBaseStepNanos() {
+        return tierNanos[0];
+    }
+
+    public double getUtilization() { return utilization; }
+    public long getDegrades() { return degrades; }
+    public long getRecovers() { return recovers; }
+
+    // 房间在某一档位下每秒占用线程的比例（按最近的单步平均耗时估算）
+    private double costPerSecond(GameManager.ActiveGame room, int level) {
+        return (double) room.clock.getAvgStepNanos() / tierNanos[level];
+    }
+
+    private GameManager.ActiveGame heaviest(List<GameManager.ActiveGame> rooms) {
+        GameManager.ActiveGame best = null;
+        double bestCost = -1;
+        for (int i = 0; i < rooms.size(); i++) {
+            GameManager.ActiveGame room = rooms.get(i);
+            int level = room.clock.getRateLevel();
+            if (room.concluded || room.hibernating || level >= tierNanos.length - 1) continue;
+            double cost = costPerSecond(room, level);
+            if (cost > bestCost) {
+                bestCost = cost;
+                best = room;
+            }
+        }
+        return best;
+    }
+
+    private GameManager.ActiveGame mostDegraded(List<GameManager.ActiveGame> rooms) {
+        GameManager.ActiveGame best = null;
+        for (int i = 0; i < rooms.size(); i++) {
+            GameManager.ActiveGame room = rooms.get(i);
+            if (room.concluded || room.clock.getRateLevel() == 0) continue;
+            if (best == null || room.clock.getRateLevel() > best.clock.getRateLevel()) {
+                best = room;
+            }
+        }
+        return best;
+    }
+}
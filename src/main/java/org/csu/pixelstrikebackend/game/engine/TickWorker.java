@@ -0,0 +1,222 @@
+package org.csu.pixelstrikebackend.game.engine;
+
+import org.csu.pixelstrikebackend.game.service.GameManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个 Tick 工作线程。
+ * 每个房间在同一时刻只归属一个 TickWorker，房间状态只会在这个线程上被修改（单写者）。
+ * rooms 列表只允许在本线程内访问，外部通过 attach/detach 投递任务来增删房间。
+ * 线程不使用 scheduleAtFixedRate（慢帧之后会连续补发），而是每帧结束后按最近一个房间的到期时间重新调度自己。
+ * 休眠的房间不参与 tick，只按其唤醒时间参与调度；没有任何房间时线程不再调度自己（停放），直到有房间挂入或被唤醒。
+ * 每帧结束后由 TickRateGovernor 根据本线程的忙碌占比调整各房间的频率。
+ */
+public class TickWorker {
+
+    private final int index;
+    private final ScheduledExecutorService executor;
+    private final List<GameManager.ActiveGame> rooms = new ArrayList<>();
+
+    // --- 负载统计（供调度器选择与监控使用） ---
+    private final AtomicInteger roomCount = new AtomicInteger();
+    private final AtomicInteger playerCount = new AtomicInteger();
+    private volatile long lastTickNanos;
+    private volatile long avgTickNanos;
+    private volatile long maxTickNanos;
+    private volatile long totalTicks;
+    private volatile long overrunFrames; // 整帧耗时超过一个步长的次数
+
+    private RoomStepper stepper;
+    private TickRateGovernor governor;
+    private long frameBudgetNanos;
+    private ScheduledFuture<?> nextFrame; // 只在本线程访问，null 表示已停放
+    private long nextFrameAtNanos; // 下一帧的计划时间，用于统计迟到，只在本线程访问
+
+    public TickWorker(int index) {
+        this.index = index;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "game-tick-" + index);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void start(RoomStepper stepper, TickRateGovernor governor) {
+        this.stepper = stepper;
+        this.governor = governor;
+        this.frameBudgetNanos = governor.getBaseStepNanos();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 将房间挂到本线程。计数立即生效，列表修改在本线程上执行。
+     */
+    public void attach(GameManager.ActiveGame game) {
+        roomCount.incrementAndGet();
+        playerCount.addAndGet(game.playerIds.size());
+        executor.execute(() -> add(game));
+    }
+
+    /**
+     * 唤醒本线程立即跑一帧，用于休眠房间收到新命令时。可在任意线程调用。
+     */
+    public void wake() {
+        executor.execute(this::kick);
+    }
+
+    /**
+     * 将房间从本线程摘下（对局结束）。
+     */
+    public void detach(GameManager.ActiveGame game) {
+        roomCount.decrementAndGet();
+        playerCount.addAndGet(-game.playerIds.size());
+        executor.execute(() -> rooms.remove(game));
+    }
+
+    /**
+     * 将房间迁移到另一个线程：先在本线程上摘下，再投递到目标线程挂上，
+     * 保证任意时刻只有一个线程在推进该房间。计数立即转移，以便调度器后续决策使用最新负载。
+     */
+    public void migrateTo(GameManager.ActiveGame game, TickWorker target) {
+        roomCount.decrementAndGet();
+        playerCount.addAndGet(-game.playerIds.size());
+        target.roomCount.incrementAndGet();
+        target.playerCount.addAndGet(game.playerIds.size());
+        executor.execute(() -> {
+            rooms.remove(game);
+            target.executor.execute(() -> target.add(game));
+        });
+    }
+
+    // 挂上房间并立即跑一帧，只在本线程调用。
+    // 迁移途中对局结束时，目标线程的 detach 可能先于转发过来的挂入执行，已结束的房间不再挂入，否则会一直留在列表里
+    private void add(GameManager.ActiveGame game) {
+        if (game.concluded) return;
+        rooms.add(game);
+        kick();
+    }
+
+    /**
+     * 本线程当前挂着的房间数，会等待此前投递的任务全部执行完。测试用。
+     */
+    int attachedRooms() throws InterruptedException, ExecutionException {
+        return executor.submit(rooms::size).get();
+    }
+
+    // 取消已排好的下一帧并立即执行一帧，只在本线程调用
+    private void kick() {
+        if (nextFrame != null) {
+            nextFrame.cancel(false);
+            nextFrame = null;
+        }
+        nextFrameAtNanos = 0;
+        runFrame();
+    }
+
+    private void runFrame() {
+        long start = System.nanoTime();
+        long nowMs = System.currentTimeMillis();
+        // 按下标遍历：房间结束时 detach 只是投递任务，不会在遍历中修改列表
+        for (int i = 0; i < rooms.size(); i++) {
+            GameManager.ActiveGame game = rooms.get(i);
+            if (game.hibernating) {
+                // 有新命令或定时事件到期才恢复，休眠期间的时间不补跑
+                if (game.commands.isEmpty() && nowMs < game.wakeAtMs) continue;
+                game.hibernating = false;
+                game.clock.reset();
+            }
+            TickClock clock = game.clock;
+            int due = clock.advance(start);
+            for (int s = 0; s < due && !game.concluded && !game.hibernating; s++) {
+                long t0 = System.nanoTime();
+                try {
+                    stepper.step(game, clock.getStepSeconds());
+                } catch (Exception e) {
+                    // 单个房间出错不能影响同线程上的其他房间
+                    System.err.println("Error in game tick for game " + game.gameId + ": " + e.getMessage());
+                    e.printStackTrace();
+                }
+                clock.recordStep(System.nanoTime() - t0);
+            }
+        }
+        long end = System.nanoTime();
+        recordFrame(end - start);
+        governor.recordFrame(start, end - start, nextFrameAtNanos > 0 ? start - nextFrameAtNanos : 0);
+        governor.evaluate(end, rooms);
+
+        // 下一次唤醒时间取所有房间中最早到期的那个，休眠房间按其唤醒时间计算
+        long delay = Long.MAX_VALUE;
+        long endMs = System.currentTimeMillis();
+        for (int i = 0; i < rooms.size(); i++) {
+            GameManager.ActiveGame game = rooms.get(i);
+            if (game.concluded) continue;
+            long d = game.hibernating
+                    ? Math.max(0, game.wakeAtMs - endMs) * 1_000_000L
+                    : game.clock.nanosUntilNextStep(end);
+            delay = Math.min(delay, d);
+        }
+        if (delay == Long.MAX_VALUE) {
+            // 没有需要推进的房间，停放线程
+            nextFrame = null;
+            return;
+        }
+        try {
+            nextFrameAtNanos = end + delay;
+            nextFrame = executor.schedule(this::runFrame, delay, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // 应用关闭中
+        }
+    }
+
+    private void recordFrame(long cost) {
+        lastTickNanos = cost;
+        avgTickNanos = totalTicks == 0 ? cost : (avgTickNanos * 7 + cost) / 8;
+        if (cost > maxTickNanos) maxTickNanos = cost;
+        if (cost > frameBudgetNanos) overrunFrames++;
+        totalTicks++;
+    }
+
+    public int getIndex() { return index; }
+    public int getRoomCount() { return roomCount.get(); }
+    public int getPlayerCount() { return playerCount.get(); }
+
+    public Load snapshotLoad() {
+        return new Load(index, roomCount.get(), playerCount.get(), lastTickNanos, avgTickNanos, maxTickNanos, totalTicks, overrunFrames,
+                governor == null ? 0 : governor.getUtilization(),
+                governor == null ? 0 : governor.getDegrades(),
+                governor == null ? 0 : governor.getRecovers());
+    }
+
+    public static final class Load {
+        public final int worker;
+        public final int rooms;
+        public final int players;
+        public final long lastTickMicros;
+        public final long avgTickMicros;
+        public final long maxTickMicros;
+        public final long ticks;
+        public final long overrunFrames;
+        public final double utilization; // 最近一个统计窗口内线程的忙碌占比
+        public final long rateDegrades;
+        public final long rateRecovers;
+        public Load(int worker, int rooms, int players, long lastTickNanos, long avgTickNanos, long maxTickNanos, long ticks, long overrunFrames,
+                    double utilization, long rateDegrades, long rateRecovers) {
+            this.worker = worker; this.rooms = rooms; this.players = players;
+            this.lastTickMicros = lastTickNanos / 1000; this.avgTickMicros = avgTickNanos / 1000;
+            this.maxTickMicros = maxTickNanos / 1000; this.ticks = ticks; this.overrunFrames = overrunFrames;
+            this.utilization = utilization; this.rateDegrades = rateDegrades; this.rateRecovers = rateRecovers;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.csu.pixelstrikebackend.game.engine;
+
+import java.util.function.Consumer;
+
+/**
+ * 单个房间的哈希时间轮。
+ * 每个槽位是一条双向链表，定时器按到期 tick 散列到槽位；新增和取消都是 O(1)，
+ * 推进时只访问经过的槽位，并且只摘出已到期的节点，开销与“正在等待的定时器数量”无关。
+ * 只在房间所属的 tick 线程上使用（房间创建时的初始定时器除外，那时房间尚未交给工作线程）。
+ */
+public class TimingWheel {
+
+    private static final int IN_READY = -2;
+    private static final int DETACHED = -1;
+
+    public static final class Timeout {
+        private final RoomTimer type;
+        private final int arg;
+        private final long deadlineMs;
+        private long deadlineTick;
+        private int bucket = DETACHED;
+        private Timeout prev, next;
+
+        private Timeout(RoomTimer type, int arg, long deadlineMs) {
+            this.type = type;
+            this.arg = arg;
+            this.deadlineMs = deadlineMs;
+        }
+
+        public RoomTimer getType() { return type; }
+        public int getArg() { return arg; }
+        public long getDeadlineMs() { return deadlineMs; }
+        public boolean isPending() { return bucket != DETACHED; }
+    }
+
+    private final long tickMs;
+    private final long originMs;
+    private final int mask;
+    private final Timeout[] buckets;
+    private long currentTick; // 下一个待处理的 tick
+    private int size;
+
+    // 已到期、等待 poll 的节点
+    private Timeout readyHead, readyTail;
+
+    public TimingWheel(long tickMs, int wheelSize, long originMs) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of two");
+        }
+        this.tickMs = Math.max(1, tickMs);
+        this.originMs = originMs;
+        this.mask = wheelSize - 1;
+        this.buckets = new Timeout[wheelSize];
+    }
+
+    public Timeout schedule(long deadlineMs, RoomTimer type, int arg) {
+        Timeout t = new Timeout(type, arg, deadlineMs);
+        // 向上取整，保证不会早于 deadline 触发；已过期的放到下一个待处理的 tick
+        long tick = Math.floorDiv(deadlineMs - originMs + tickMs - 1, tickMs);
+        t.deadlineTick = Math.max(tick, currentTick);
+        int idx = (int) (t.deadlineTick & mask);
+        t.bucket = idx;
+        t.next = buckets[idx];
+        if (t.next != null) t.next.prev = t;
+        buckets[idx] = t;
+        size++;
+        return t;
+    }
+
+    public boolean cancel(Timeout t) {
+        if (t == null || t.bucket == DETACHED) return false;
+        if (t.bucket == IN_READY) {
+            if (t.prev != null) t.prev.next = t.next; else readyHead = t.next;
+            if (t.next != null) t.next.prev = t.prev; else readyTail = t.prev;
+        } else {
+            unlinkFromBucket(t);
+        }
+        t.prev = t.next = null;
+        t.bucket = DETACHED;
+        size--;
+        return true;
+    }
+
+    /**
+     * 推进到 nowMs，把所有到期节点移入就绪队列，之后用 poll() 逐个取出。
+     * 落后超过一整圈时（例如房间刚从长时间休眠中醒来）只扫描每个槽位一次。
+     */
+    public void advance(long nowMs) {
+        long target = Math.floorDiv(nowMs - originMs, tickMs);
+        if (target < currentTick) return;
+        if (target - currentTick >= buckets.length) {
+            for (int i = 0; i < buckets.length; i++) {
+                expireBucket(i, target);
+            }
+        } else {
+            for (long tick = currentTick; tick <= target; tick++) {
+                expireBucket((int) (tick & mask), tick);
+            }
+        }
+        currentTick = target + 1;
+    }
+
+    /**
+     * 取出一个已到期的定时器，没有则返回 null。取出的节点不再计入 size。
+     */
+    public Timeout poll() {
+        Timeout t = readyHead;
+        if (t == null) return null;
+        readyHead = t.next;
+        if (readyHead != null) readyHead.prev = null; else readyTail = null;
+        t.prev = t.next = null;
+        t.bucket = DETACHED;
+        size--;
+        return t;
+    }
+
+    /**
+     * 最早的到期时间，没有定时器时返回 Long.MAX_VALUE。需要遍历全部节点，只在房间准备休眠时调用。
+     */
+    public long nextDeadlineMs() {
+        if (readyHead != null) return Long.MIN_VALUE;
+        long min = Long.MAX_VALUE;
+        if (size == 0) return min;
+        for (Timeout head : buckets) {
+            for (Timeout t = head; t != null; t = t.next) {
+                if (t.deadlineMs < min) min = t.deadlineMs;
+            }
+        }
+        return min;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 遍历所有尚未取出的定时器（含已到期未 poll 的），顺序不固定。用于写检查点。
+     */
+    public void forEachPending(Consumer<Timeout> action) {
+        for (Timeout t = readyHead; t != null; t = t.next) {
+            action.accept(t);
+        }
+        for (Timeout head : buckets) {
+            for (Timeout t = head; t != null; t = t.next) {
+                action.accept(t);
+            }
+        }
+    }
+
+    private void expireBucket(int idx, long uptoTick) {
+        Timeout t = buckets[idx];
+        while (t != null) {
+            Timeout next = t.next;
+            if (t.deadlineTick <= uptoTick) {
+                unlinkFromBucket(t);
+                t.bucket = IN_READY;
+                t.next = null;
+                t.prev = readyTail;
+                if (readyTail != null) readyTail.next = t; else readyHead = t;
+                readyTail = t;
+            }
+            t = next;
+        }
+    }
+
+    private void unlinkFromBucket(Timeout t) {
+        if (t.prev != null) t.prev.next = t.next; else buckets[t.bucket] = t.next;
+        if (t.next != null) t.next.prev = t.prev;
+        t.prev = t.next = null;
+    }
+}
@@ -0,0 +1,13 @@
+package org.csu.pixelstrikebackend.game.geom;
+
+/**
+ * HitMath 批量检测的实现，参数含义见 HitMath.segmentsVsBoxes。
+ */
+interface HitKernel {
+
+    void intersect(double[] ox, double[] oy, double[] dx, double[] dy, int from, int to,
+                   double[] minX, double[] minY, double[] maxX, double[] maxY, int boxes,
+                   double[] tOut);
+
+    String name();
+}
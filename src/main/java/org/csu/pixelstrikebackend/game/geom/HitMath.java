@@ -1,45 +1,64 @@
 package org.csu.pixelstrikebackend.game.geom;
 
+/**
+ * 线段与轴对齐包围盒（AABB）的相交检测，只用局部变量，任意线程都可以并发调用。
+ * 批量接口的实现在类加载时选定：运行时加载了 jdk.incubator.vector 模块时用向量实现，否则用标量实现，两者结果逐位一致。
+ */
 public final class HitMath {
     private HitMath() {}
 
+    private static final HitKernel KERNEL = selectKernel();
+
     /** 线段 p(t)= (ox,oy) + t*(dx,dy), t∈[0,1] 与 AABB [minX,maxX]×[minY,maxY] 是否相交；返回 tEnter(命中最近点)，未命中返回 +INF */
     public static double raySegmentVsAABB(double ox, double oy, double dx, double dy,
                                           double minX, double minY, double maxX, double maxY) {
-        // Liang–Barsky / Slab method
+        // Slab method：每个轴求进入/离开参数，与 [0,1] 取交集
         double t0 = 0.0;
         double t1 = 1.0;
 
-        if (!updateInterval(-dx, ox - minX, t0, t1)) return Double.POSITIVE_INFINITY;
-        t0 = tmpT0; t1 = tmpT1;
-        if (!updateInterval( dx, maxX - ox, t0, t1)) return Double.POSITIVE_INFINITY;
-        t0 = tmpT0; t1 = tmpT1;
+        if (dx == 0.0) {
+            if (ox < minX || ox > maxX) return Double.POSITIVE_INFINITY;
+        } else {
+            double a = (minX - ox) / dx, b = (maxX - ox) / dx;
+            t0 = Math.max(t0, Math.min(a, b));
+            t1 = Math.min(t1, Math.max(a, b));
+        }
 
-        if (!updateInterval(-dy, oy - minY, t0, t1)) return Double.POSITIVE_INFINITY;
-        t0 = tmpT0; t1 = tmpT1;
-        if (!updateInterval( dy, maxY - oy, t0, t1)) return Double.POSITIVE_INFINITY;
-        t0 = tmpT0; t1 = tmpT1;
+        if (dy == 0.0) {
+            if (oy < minY || oy > maxY) return Double.POSITIVE_INFINITY;
+        } else {
+            double a = (minY - oy) / dy, b = (maxY - oy) / dy;
+            t0 = Math.max(t0, Math.min(a, b));
+            t1 = Math.min(t1, Math.max(a, b));
+        }
 
-        return (t0 <= t1) ? Math.max(0.0, t0) : Double.POSITIVE_INFINITY;
+        return (t0 <= t1) ? t0 : Double.POSITIVE_INFINITY;
     }
 
-    // --- 内部：为避免频繁创建 Pair，这里用静态线程不安全临时变量（本服务单线程处理消息即可）
-    private static double tmpT0, tmpT1;
-    private static boolean updateInterval(double p, double q, double t0, double t1) {
-        if (p == 0.0) {
-            if (q < 0.0) return false;
-            tmpT0 = t0; tmpT1 = t1;
-            return true;
-        }
-        double r = q / p;
-        if (p < 0.0) {
-            if (r > t1) return false;
-            if (r > t0) t0 = r;
-        } else {
-            if (r < t0) return false;
-            if (r < t1) t1 = r;
+    /**
+     * 批量检测：线段 s ∈ [from, to) 为 (ox[s],oy[s]) + t*(dx[s],dy[s])，盒子 b ∈ [0, boxes) 为 [minX[b],maxX[b]]×[minY[b],maxY[b]]，
+     * 每对的 tEnter 写入 tOut[s * boxes + b]，未命中为 +INF。不分配对象，不同线程可以同时处理不重叠的线段区间。
+     */
+    public static void segmentsVsBoxes(double[] ox, double[] oy, double[] dx, double[] dy, int from, int to,
+                                       double[] minX, double[] minY, double[] maxX, double[] maxY, int boxes,
+                                       double[] tOut) {
+        KERNEL.intersect(ox, oy, dx, dy, from, to, minX, minY, maxX, maxY, boxes, tOut);
+    }
+
+    public static String kernelName() {
+        return KERNEL.name();
+    }
+
+    private static HitKernel selectKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // 通过反射加载，未启用该模块时不会触碰向量 API 的类
+                return (HitKernel) Class.forName("org.csu.pixelstrikebackend.game.geom.VectorHitKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                System.err.println("Vector hit kernel unavailable, using scalar: " + e);
+            }
         }
-        tmpT0 = t0; tmpT1 = t1;
-        return true;
+        return new ScalarHitKernel();
     }
 }
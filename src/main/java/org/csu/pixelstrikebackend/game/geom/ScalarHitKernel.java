@@ -0,0 +1,25 @@
+package org.csu.pixelstrikebackend.game.geom;
+
+/**
+ * 逐对调用 HitMath.raySegmentVsAABB 的标量实现，未启用向量模块时使用。
+ */
+final class ScalarHitKernel implements HitKernel {
+
+    @Override
+    public void intersect(double[] ox, double[] oy, double[] dx, double[] dy, int from, int to,
+                          double[] minX, double[] minY, double[] maxX, double[] maxY, int boxes,
+                          double[] tOut) {
+        for (int s = from; s < to; s++) {
+            double sx = ox[s], sy = oy[s], ex = dx[s], ey = dy[s];
+            int row = s * boxes;
+            for (int b = 0; b < boxes; b++) {
+                tOut[row + b] = HitMath.raySegmentVsAABB(sx, sy, ex, ey, minX[b], minY[b], maxX[b], maxY[b]);
+            }
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
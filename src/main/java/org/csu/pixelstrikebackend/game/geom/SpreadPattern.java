@@ -0,0 +1,28 @@
+package org.csu.pixelstrikebackend.game.geom;
+
+/**
+ * 散射武器一次齐射中每颗弹丸的方向，服务器和客户端用同一个 seed 展开得到完全相同的弹道。
+ * 第 k 颗（共 n 颗）的角度为 base + spread * ((k + u_k) / n - 0.5)，
+ * 即把扇形均分成 n 份，每颗落在自己那一份内、位置由 u_k 决定；u_k 是 32 位 xorshift（13, 17, 5）的第 k+1 个输出除以 2^32，
+ * 初始状态为 seed，seed 为 0 时取 0x9E3779B9。
+ */
+public final class SpreadPattern {
+    private SpreadPattern() {}
+
+    /**
+     * 以 (dx, dy) 为中心方向展开 n 颗弹丸的单位方向向量，写入 outX/outY 的 [0, n)。
+     */
+    public static void expand(double dx, double dy, double spread, int seed, int n, double[] outX, double[] outY) {
+        double base = Math.atan2(dy, dx);
+        int x = seed != 0 ? seed : 0x9E3779B9;
+        for (int k = 0; k < n; k++) {
+            x ^= x << 13;
+            x ^= x >>> 17;
+            x ^= x << 5;
+            double u = Integer.toUnsignedLong(x) / 4294967296.0;
+            double angle = base + spread * ((k + u) / n - 0.5);
+            outX[k] = Math.cos(angle);
+            outY[k] = Math.sin(angle);
+        }
+    }
+}
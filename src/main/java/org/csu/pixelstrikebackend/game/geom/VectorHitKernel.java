@@ -0,0 +1,63 @@
+package org.csu.pixelstrikebackend.game.geom;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * jdk.incubator.vector 实现：每条线段广播到所有通道，一次处理 SPECIES_PREFERRED 个盒子，剩余的盒子走标量路径。
+ * 运算顺序与 HitMath.raySegmentVsAABB 相同，结果逐位一致。只由 HitMath 在启用了该模块时反射创建。
+ */
+final class VectorHitKernel implements HitKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void intersect(double[] ox, double[] oy, double[] dx, double[] dy, int from, int to,
+                          double[] minX, double[] minY, double[] maxX, double[] maxY, int boxes,
+                          double[] tOut) {
+        int bound = SPECIES.loopBound(boxes);
+        DoubleVector inf = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+        for (int s = from; s < to; s++) {
+            double sx = ox[s], sy = oy[s], ex = dx[s], ey = dy[s];
+            int row = s * boxes;
+            int b = 0;
+            for (; b < bound; b += SPECIES.length()) {
+                DoubleVector loX = DoubleVector.fromArray(SPECIES, minX, b);
+                DoubleVector hiX = DoubleVector.fromArray(SPECIES, maxX, b);
+                DoubleVector loY = DoubleVector.fromArray(SPECIES, minY, b);
+                DoubleVector hiY = DoubleVector.fromArray(SPECIES, maxY, b);
+                DoubleVector t0 = DoubleVector.zero(SPECIES);
+                DoubleVector t1 = DoubleVector.broadcast(SPECIES, 1.0);
+                VectorMask<Double> hit = SPECIES.maskAll(true);
+
+                if (ex == 0.0) {
+                    hit = hit.and(loX.compare(VectorOperators.LE, sx)).and(hiX.compare(VectorOperators.GE, sx));
+                } else {
+                    DoubleVector a = loX.sub(sx).div(ex), c = hiX.sub(sx).div(ex);
+                    t0 = t0.max(a.min(c));
+                    t1 = t1.min(a.max(c));
+                }
+                if (ey == 0.0) {
+                    hit = hit.and(loY.compare(VectorOperators.LE, sy)).and(hiY.compare(VectorOperators.GE, sy));
+                } else {
+                    DoubleVector a = loY.sub(sy).div(ey), c = hiY.sub(sy).div(ey);
+                    t0 = t0.max(a.min(c));
+                    t1 = t1.min(a.max(c));
+                }
+
+                hit = hit.and(t0.compare(VectorOperators.LE, t1));
+                t0.blend(inf, hit.not()).intoArray(tOut, row + b);
+            }
+            for (; b < boxes; b++) {
+                tOut[row + b] = HitMath.raySegmentVsAABB(sx, sy, ex, ey, minX[b], minY[b], maxX[b], maxY[b]);
+            }
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector(" + SPECIES.vectorBitSize() + "-bit)";
+    }
+}
@@ -0,0 +1,58 @@
+package org.csu.pixelstrikebackend.game.rules;
+
+import org.csu.pixelstrikebackend.config.GameConfig;
+import org.csu.pixelstrikebackend.game.service.GameManager;
+import org.csu.pixelstrikebackend.lobby.service.PlayerSessionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * 个人死斗：任一玩家击杀数达到 killsToWin，或到达最长时长，或所有玩家都已离开时结束。
+ * 现有的“匹配”和“自定义房间”对局都使用这套规则，也是没有匹配到其他规则时的默认规则。
+ */
+@Component
+public class DeathmatchMode implements GameMode {
+
+    private static final Set<String> MODE_NAMES = Set.of("DEATHMATCH", "死斗", "匹配", "自定义房间");
+
+    @Autowired private GameConfig gameConfig;
+    @Autowired private PlayerSessionService playerSessionService;
+
+    @Override
+    public String getName() {
+        return "DEATHMATCH";
+    }
+
+    @Override
+    public boolean supports(String gameMode) {
+        return gameMode != null && MODE_NAMES.contains(gameMode);
+    }
+
+    @Override
+    public boolean isFallback() {
+        return true;
+    }
+
+    @Override
+    public String onEvent(GameManager.ActiveGame game, GameEvent event) {
+        switch (event.type) {
+            case KILL:
+                // 只有击杀者的击杀数变化了，只检查这一个人
+                if (game.world.getKills(game.world.slotOf(event.actorId)) >= gameConfig.getRules().getKillsToWin()) {
+                    return "Score reached";
+                }
+                return null;
+            case TIMER_EXPIRED:
+                return "Time is up";
+            case PLAYER_LEFT:
+                for (Integer playerId : game.playerIds) {
+                    if (game.gameId.equals(playerSessionService.getActiveGameId(playerId))) return null;
+                }
+                return "All players left";
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.csu.pixelstrikebackend.game.rules;
+
+/**
+ * 对局内发生的、可能影响胜负的领域事件。规则只在这些事件发生时求值，不再每个 tick 轮询。
+ */
+public final class GameEvent {
+
+    public enum Type {
+        KILL,           // actorId 击杀了 targetId
+        DEATH,          // targetId 死于环境伤害（没有击杀者）
+        TIMER_EXPIRED,  // 对局到达最长时长
+        PLAYER_LEFT     // targetId 离开对局（主动退出或断线）
+    }
+
+    public static final int NONE = -1;
+
+    public final Type type;
+    public final int actorId;
+    public final int targetId;
+
+    private GameEvent(Type type, int actorId, int targetId) {
+        this.type = type;
+        this.actorId = actorId;
+        this.targetId = targetId;
+    }
+
+    public static GameEvent kill(int killerId, int victimId) {
+        return new GameEvent(Type.KILL, killerId, victimId);
+    }
+
+    public static GameEvent death(int victimId) {
+        return new GameEvent(Type.DEATH, NONE, victimId);
+    }
+
+    public static GameEvent timerExpired() {
+        return new GameEvent(Type.TIMER_EXPIRED, NONE, NONE);
+    }
+
+    public static GameEvent playerLeft(int userId) {
+        return new GameEvent(Type.PLAYER_LEFT, NONE, userId);
+    }
+}
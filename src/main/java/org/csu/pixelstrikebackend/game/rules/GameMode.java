@@ -0,0 +1,32 @@
+package org.csu.pixelstrikebackend.game.rules;
+
+import org.csu.pixelstrikebackend.game.service.GameManager;
+
+/**
+ * 可插拔的玩法规则。实现类注册为 Spring Bean，按对局记录中的 Match.gameMode 选择。
+ * onEvent 在房间的 tick 线程上调用，可以直接读取该房间的玩家状态。
+ */
+public interface GameMode {
+
+    /**
+     * 规则名称，用于日志和监控。
+     */
+    String getName();
+
+    /**
+     * 是否负责该 gameMode 字符串对应的对局。
+     */
+    boolean supports(String gameMode);
+
+    /**
+     * 没有任何规则声明支持某个 gameMode 时是否作为默认规则。
+     */
+    default boolean isFallback() {
+        return false;
+    }
+
+    /**
+     * 处理一个事件。对局应当结束时返回结束原因，否则返回 null。
+     */
+    String onEvent(GameManager.ActiveGame game, GameEvent event);
+}
@@ -0,0 +1,84 @@
+package org.csu.pixelstrikebackend.game.service;
+
+import org.csu.pixelstrikebackend.config.GameConfig;
+import org.csu.pixelstrikebackend.game.AdmissionDecision;
+import org.csu.pixelstrikebackend.game.engine.TickClock;
+import org.csu.pixelstrikebackend.game.engine.TickWorker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 新对局的准入判断（容量模型）。
+ * 依据三项实测指标：目标 Tick 线程接入新对局后的预计忙碌占比、对局中玩家总数、所有连接的待发送缓冲总量。
+ * 目标线程上已有房间被降频时也拒绝，保证已在进行的对局先拿回自己的帧预算，而不是让整机一起变慢。
+ * 判断是软限制：并发的两次询问可能同时通过，由降频机制兜底。
+ */
+@Service
+public class GameCapacityService {
+
+    @Autowired private GameConfig gameConfig;
+    @Autowired private GameTickScheduler gameTickScheduler;
+    @Autowired private GameSessionManager gameSessionManager;
+
+    private volatile String pausedReason; // 非 null 时拒绝所有新对局（如启动预热期间）
+
+    public void pauseAdmission(String reason) {
+        this.pausedReason = reason;
+    }
+
+    public void resumeAdmission() {
+        this.pausedReason = null;
+    }
+
+    public AdmissionDecision checkAdmission(int playerCount) {
+        GameConfig.Admission cfg = gameConfig.getAdmission();
+        String paused = pausedReason;
+        if (paused != null) {
+            return reject(paused);
+        }
+        List<TickWorker.Load> loads = gameTickScheduler.getWorkerLoads();
+
+        int activePlayers = 0;
+        double totalUtil = 0;
+        for (TickWorker.Load load : loads) {
+            activePlayers += load.players;
+            totalUtil += effectiveUtilization(load);
+        }
+        if (activePlayers + playerCount > cfg.getMaxActivePlayers()) {
+            return reject("对局中玩家数已达上限 (" + activePlayers + ")");
+        }
+
+        long outbound = gameSessionManager.getOutboundBufferedBytes();
+        if (outbound > cfg.getMaxOutboundBytes()) {
+            return reject("待发送消息积压 (" + outbound + " bytes)");
+        }
+
+        int target = gameTickScheduler.peekTargetWorker();
+        for (TickClock.Stats room : gameTickScheduler.getRoomStats()) {
+            if (room.worker == target && room.rateLevel > 0) {
+                return reject("Tick 线程 " + target + " 上已有房间被降频");
+            }
+        }
+
+        // 按全机“每名玩家的平均占比”估算新对局的开销；还没有任何数据时只看当前占比
+        TickWorker.Load targetLoad = loads.get(target);
+        double perPlayer = activePlayers > 0 ? totalUtil / activePlayers : 0;
+        double projected = effectiveUtilization(targetLoad) + perPlayer * playerCount;
+        if (projected > cfg.getMaxTickUtilization()) {
+            return reject(String.format("Tick 线程 %d 预计占比 %.2f 超过上限", target, projected));
+        }
+        return AdmissionDecision.accept();
+    }
+
+    // 线程停放后不再更新统计窗口，没有房间时按空闲计算
+    private static double effectiveUtilization(TickWorker.Load load) {
+        return load.rooms == 0 ? 0 : load.utilization;
+    }
+
+    private AdmissionDecision reject(String reason) {
+        System.out.println("Admission rejected: " + reason);
+        return AdmissionDecision.full(reason, gameConfig.getAdmission().getRetryAfterMs());
+    }
+}
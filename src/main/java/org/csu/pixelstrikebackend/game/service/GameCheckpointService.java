@@ -0,0 +1,324 @@
+package org.csu.pixelstrikebackend.game.service;
+
+import org.csu.pixelstrikebackend.config.GameConfig;
+import org.csu.pixelstrikebackend.game.engine.GameWorld;
+import org.csu.pixelstrikebackend.game.engine.ProjectilePool;
+import org.csu.pixelstrikebackend.game.engine.RoomTimer;
+import org.csu.pixelstrikebackend.game.engine.SupplyDirector;
+import org.csu.pixelstrikebackend.game.engine.TickClock;
+import org.csu.pixelstrikebackend.game.engine.TimingWheel;
+import org.csu.pixelstrikebackend.game.model.SupplyDrop;
+import org.csu.pixelstrikebackend.game.rules.GameMode;
+import org.csu.pixelstrikebackend.lobby.entity.Match;
+import org.csu.pixelstrikebackend.lobby.service.PlayerSessionService;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对局检查点：把进行中的对局（名单、角色选择、血量与战绩、定时器、补给品、飞行中的子弹）写成紧凑的二进制文件，
+ * 新进程启动时读回并等待玩家在宽限期内重连，滚动重启不再打断对局。
+ * 每个房间的状态由它自己的 tick 线程写出（作为一条房间命令执行），不需要暂停其他房间。
+ * 停机时在 Web 服务器关闭连接之前写出并摘下所有房间，避免连接断开被当作“全部玩家离开”而提前结算；
+ * 恢复在所有单例创建完成后、Web 服务器开始接受连接之前进行，玩家重连时房间一定已经就位。
+ */
+@Service
+public class GameCheckpointService implements SmartLifecycle, SmartInitializingSingleton {
+
+    private static final int MAGIC = 0x50584350; // "PXCP"
+    private static final int VERSION = 3;
+
+    @Autowired private GameConfig gameConfig;
+    @Autowired private GameManager gameManager;
+    @Autowired private GameTickScheduler gameTickScheduler;
+    @Autowired private GameTimerService gameTimerService;
+    @Autowired private GameRuleEngine gameRuleEngine;
+    @Autowired private MapDataService mapDataService;
+    @Autowired private GameCapacityService gameCapacityService;
+    @Autowired private PlayerSessionService playerSessionService;
+
+    private volatile boolean running;
+
+    // --- 生命周期：启动时恢复，停机时写出 ---
+
+    /**
+     * 在所有 Lifecycle（包括 Web 服务器）启动之前恢复，重连的玩家不会先于房间到达。
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (gameConfig.getCheckpoint().isEnabled()) {
+            restore();
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (!gameConfig.getCheckpoint().isEnabled()) return;
+        gameCapacityService.pauseAdmission("Server is shutting down");
+        List<GameManager.ActiveGame> saved = checkpoint();
+        // 已写入检查点的房间直接摘下，不结算、不上报战绩，由新进程接着进行
+        for (GameManager.ActiveGame game : saved) {
+            game.concluded = true;
+            gameManager.getActiveGames().remove(game.gameId);
+            gameTickScheduler.release(game.gameId);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 最先停止：停止时 Web 服务器尚未关闭游戏连接。
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE;
+    }
+
+    // --- 写出 ---
+
+    /**
+     * 把所有进行中的对局写入检查点文件，返回成功写出的房间。可在运行中按需调用，不影响对局继续进行。
+     */
+    public synchronized List<GameManager.ActiveGame> checkpoint() {
+        GameConfig.Checkpoint cfg = gameConfig.getCheckpoint();
+        Map<GameManager.ActiveGame, CompletableFuture<byte[]>> pending = new LinkedHashMap<>();
+        for (GameManager.ActiveGame game : gameManager.getActiveGames().values()) {
+            if (game.gameId < 0 || game.concluded) continue; // 预热房间不写
+            CompletableFuture<byte[]> future = new CompletableFuture<>();
+            if (gameManager.submit(game.gameId, () -> future.complete(encode(game)))) {
+                pending.put(game, future);
+            }
+        }
+
+        List<GameManager.ActiveGame> saved = new ArrayList<>();
+        List<byte[]> blobs = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(cfg.getSaveTimeoutMs());
+        for (Map.Entry<GameManager.ActiveGame, CompletableFuture<byte[]>> e : pending.entrySet()) {
+            try {
+                byte[] blob = e.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (blob != null) {
+                    saved.add(e.getKey());
+                    blobs.add(blob);
+                }
+            } catch (Exception ex) {
+                System.err.println("Failed to checkpoint game " + e.getKey().gameId + ": " + ex.getMessage());
+            }
+        }
+
+        Path path = Paths.get(cfg.getPath());
+        try {
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(blobs.size());
+                for (byte[] blob : blobs) {
+                    out.writeInt(blob.length);
+                    out.write(blob);
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.out.println("Checkpointed " + blobs.size() + " games to " + path.toAbsolutePath());
+            return saved;
+        } catch (IOException ex) {
+            System.err.println("Failed to write game checkpoint: " + ex.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 在房间 tick 线程上编码单个房间，返回 null 表示该房间已结束。
+     */
+    byte[] encode(GameManager.ActiveGame game) {
+        if (game.concluded || game.endReason != null) return null;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(game.gameId);
+            out.writeLong(game.startTime);
+
+            out.writeInt(game.playerIds.size());
+            for (Integer playerId : game.playerIds) {
+                out.writeInt(playerId);
+                out.writeInt(game.playerCharacterSelections.getOrDefault(playerId, 1));
+                String nickname = game.nicknames.get(playerId);
+                out.writeUTF(nickname != null ? nickname : "");
+            }
+            game.world.writeTo(out);
+
+            List<TimingWheel.Timeout> timers = new ArrayList<>();
+            game.timers.forEachPending(t -> {
+                if (t.getType() != RoomTimer.RECONNECT_GRACE) timers.add(t); // 恢复时重新登记
+            });
+            out.writeInt(timers.size());
+            for (TimingWheel.Timeout t : timers) {
+                out.writeByte(t.getType().ordinal());
+                out.writeInt(t.getArg());
+                out.writeLong(t.getDeadlineMs());
+            }
+
+            out.writeInt(game.supplies.size());
+            for (SupplyDrop drop : game.supplies.active()) {
+                out.writeLong(drop.getId()); // 到期定时器按 ID 找补给品，恢复时沿用
+                out.writeUTF(drop.getType());
+                out.writeDouble(drop.getX());
+                out.writeDouble(drop.getY());
+            }
+
+            ProjectilePool projectiles = game.projectiles;
+            out.writeInt(projectiles.size());
+            for (int i = 0; i < projectiles.size(); i++) {
+                out.writeInt(projectiles.getShooterSlot(i));
+                out.writeDouble(projectiles.getOriginX(i));
+                out.writeDouble(projectiles.getOriginY(i));
+                out.writeDouble(projectiles.getX(i));
+                out.writeDouble(projectiles.getY(i));
+                out.writeDouble(projectiles.getVelocityX(i));
+                out.writeDouble(projectiles.getVelocityY(i));
+                out.writeDouble(projectiles.getRange(i));
+                out.writeInt(projectiles.getDamage(i));
+                out.writeByte(projectiles.getWeapon(i));
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // --- 恢复 ---
+
+    private void restore() {
+        GameConfig.Checkpoint cfg = gameConfig.getCheckpoint();
+        Path path = Paths.get(cfg.getPath());
+        if (!Files.exists(path)) return;
+        int restored = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                System.err.println("Ignoring game checkpoint with unknown format: " + path.toAbsolutePath());
+                return;
+            }
+            long savedAt = in.readLong();
+            long now = System.currentTimeMillis();
+            long shift = Math.max(0, now - savedAt);
+            if (shift > cfg.getMaxAgeMs()) {
+                System.out.println("Ignoring stale game checkpoint saved " + shift + " ms ago.");
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                byte[] blob = new byte[in.readInt()];
+                in.readFully(blob);
+                try {
+                    decode(new DataInputStream(new ByteArrayInputStream(blob)), shift, now);
+                    restored++;
+                } catch (IOException | RuntimeException e) {
+                    // 单个房间损坏不影响其他房间
+                    System.err.println("Failed to restore a checkpointed game: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to read game checkpoint: " + e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(path); // 同一份检查点只恢复一次
+            } catch (IOException e) {
+                System.err.println("Failed to delete game checkpoint: " + e.getMessage());
+            }
+        }
+        System.out.println("Restored " + restored + " games from checkpoint, waiting " + cfg.getReconnectGraceMs() + " ms for players to reconnect.");
+    }
+
+    /**
+     * 读回 encode 写出的单个房间，服务器时间（定时器、死亡与中毒时间、位置快照、开局时间）都顺延 shift，并把房间挂上 tick 线程。
+     */
+    void decode(DataInputStream in, long shift, long now) throws IOException {
+        Long gameId = in.readLong();
+        long startTime = in.readLong() + shift;
+        if (gameManager.getActiveGames().containsKey(gameId)) return;
+        // 按需写出的检查点之后对局可能已经正常结算，不能再恢复
+        Match matchInfo = gameManager.getMatchInfo(gameId);
+        if (matchInfo != null && matchInfo.getEndTime() != null) {
+            throw new IllegalStateException("game " + gameId + " has already concluded");
+        }
+
+        int n = in.readInt();
+        List<Integer> playerIds = new ArrayList<>(n);
+        Map<Integer, Integer> selections = new HashMap<>();
+        Map<Integer, String> nicknames = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            int userId = in.readInt();
+            playerIds.add(userId);
+            selections.put(userId, in.readInt());
+            nicknames.put(userId, in.readUTF());
+        }
+        GameWorld world = new GameWorld(playerIds, gameConfig.getPlayer().getMaxHealth());
+        world.readFrom(in, shift);
+
+        GameMode mode = gameRuleEngine.resolve(matchInfo != null ? matchInfo.getGameMode() : null);
+        GameConfig.Engine engine = gameConfig.getEngine();
+        GameManager.ActiveGame game = new GameManager.ActiveGame(gameId, playerIds, selections,
+                new TickClock(engine.getTickRateMs(), engine.getMaxCatchUpSteps()),
+                gameTimerService.createWheel(now), world, mapDataService.collisionFor(matchInfo),
+                new SupplyDirector(mapDataService.supplySpawnsFor(matchInfo), gameConfig.getSupply().getMaxLive(),
+                        gameConfig.getSupply().getPickupRadius()),
+                gameConfig.getPlayer().getMaxProjectiles(), matchInfo, mode);
+        game.startTime = startTime;
+        game.nicknames.putAll(nicknames);
+        gameManager.loadDisplayNames(game);
+
+        RoomTimer[] types = RoomTimer.values();
+        int timers = in.readInt();
+        for (int i = 0; i < timers; i++) {
+            RoomTimer type = types[in.readByte()];
+            int arg = in.readInt();
+            game.timers.schedule(in.readLong() + shift, type, arg);
+        }
+        gameTimerService.scheduleReconnectGrace(game, -1, now + gameConfig.getCheckpoint().getReconnectGraceMs());
+
+        int drops = in.readInt();
+        for (int i = 0; i < drops; i++) {
+            game.supplies.restore(in.readLong(), in.readUTF(), in.readDouble(), in.readDouble());
+        }
+        int projectiles = in.readInt();
+        for (int i = 0; i < projectiles; i++) {
+            int shooterSlot = in.readInt();
+            double ox = in.readDouble(), oy = in.readDouble();
+            double x = in.readDouble(), y = in.readDouble();
+            double vx = in.readDouble(), vy = in.readDouble();
+            double range = in.readDouble();
+            int damage = in.readInt();
+            int index = game.projectiles.spawn(shooterSlot, ox, oy, vx, vy, range, damage, in.readByte());
+            if (index >= 0) game.projectiles.setPosition(index, x, y);
+        }
+
+        gameManager.getActiveGames().put(gameId, game);
+        playerIds.forEach(playerId -> playerSessionService.registerPlayerInGame(playerId, gameId));
+        gameTickScheduler.assign(game);
+    }
+}
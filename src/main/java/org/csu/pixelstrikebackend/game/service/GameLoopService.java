@@ -1,258 +1,299 @@
 package org.csu.pixelstrikebackend.game.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.csu.pixelstrikebackend.config.GameConfig;
+import org.csu.pixelstrikebackend.game.engine.DamageAccumulator;
+import org.csu.pixelstrikebackend.game.engine.GameWorld;
+import org.csu.pixelstrikebackend.game.engine.PositionFrame;
+import org.csu.pixelstrikebackend.game.engine.ProjectilePool;
+import org.csu.pixelstrikebackend.game.engine.ProjectileSweep;
+import org.csu.pixelstrikebackend.game.engine.TimingWheel;
 import org.csu.pixelstrikebackend.game.geom.HitMath;
-import org.csu.pixelstrikebackend.game.model.ServerProjectile;
-import org.csu.pixelstrikebackend.lobby.entity.GameMap;
+import org.csu.pixelstrikebackend.game.rules.GameEvent;
 import org.csu.pixelstrikebackend.lobby.entity.Match;
 import org.csu.pixelstrikebackend.lobby.entity.MatchParticipant;
-import org.csu.pixelstrikebackend.lobby.entity.UserProfile;
-import org.csu.pixelstrikebackend.lobby.mapper.CharacterMapper;
-import org.csu.pixelstrikebackend.lobby.mapper.MapMapper;
-import org.csu.pixelstrikebackend.lobby.mapper.UserProfileMapper;
+import org.csu.pixelstrikebackend.lobby.enums.UserStatus;
+import org.csu.pixelstrikebackend.lobby.service.OnlineUserService;
 import org.csu.pixelstrikebackend.lobby.service.PlayerSessionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.awt.geom.Point2D;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
 
 @Service
 public class GameLoopService {
 
+    private static final long SHED_SCOREBOARD_INTERVAL_MS = 1000;
+
     @Autowired private GameConfig gameConfig;
-    @Autowired private PlayerStateManager playerStateManager;
     @Autowired private GameSessionManager gameSessionManager;
     @Autowired private GameManager gameManager;
-    @Autowired private ProjectileManager projectileManager;
-    @Autowired private MapMapper mapMapper;
-    @Autowired private CharacterMapper characterMapper;
-    @Autowired private UserProfileMapper userProfileMapper;
+    @Autowired private GameTickScheduler gameTickScheduler;
+    @Autowired private GameTimerService gameTimerService;
+    @Autowired private ItemSpawnService itemSpawnService;
+    @Autowired private GameRuleEngine gameRuleEngine;
     @Autowired private PlayerSessionService playerSessionService;
-    private ScheduledExecutorService gameLoopExecutor;
+    @Autowired private OnlineUserService onlineUserService;
     private final ObjectMapper mapper = new ObjectMapper();
     private final Random random = new Random(); // ★ 新增：创建一个 Random 实例 ★
+    private ForkJoinPool simulationPool; // 大房间子弹并行推进用，所有 tick 线程共享
 
 
     @PostConstruct
     public void init() {
-        gameLoopExecutor = Executors.newSingleThreadScheduledExecutor();
-        gameLoopExecutor.scheduleAtFixedRate(this::gameTick, 0, gameConfig.getEngine().getTickRateMs(), TimeUnit.MILLISECONDS);
+        int threads = gameConfig.getEngine().getSimulationThreads();
+        simulationPool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        System.out.println("Hit detection kernel: " + HitMath.kernelName());
+        // 每个房间由其所属的 TickWorker 线程推进，这里只注册单个房间的 tick 逻辑
+        gameTickScheduler.start(this::tickGame);
     }
 
     @PreDestroy
     public void shutdown() {
-        if (gameLoopExecutor != null) {
-            gameLoopExecutor.shutdown();
-        }
+        simulationPool.shutdown();
     }
 
-    private void gameTick() {
-        try {
-            long now = System.currentTimeMillis();
-            double deltaTime = gameConfig.getEngine().getTickRateMs() / 1000.0; // 转换为秒
-            handleRespawns(now);
-            // 更新所有子弹的位置并检查碰撞
-            updateProjectiles(deltaTime);
-            handlePoisonDamage(now);
-            checkGameOverConditions(now);
-            broadcastScoreboard();
-        } catch (Exception e) {
-            System.err.println("Error in game tick: " + e.getMessage());
-            e.printStackTrace();
+    /**
+     * 推进单个房间一个固定步长，deltaTime 由房间时钟给出（秒）。
+     */
+    private void tickGame(GameManager.ActiveGame game, double deltaTime) {
+        // 先按顺序执行本步之前收到的所有入站命令，之后的逻辑都在同一线程上读写房间状态
+        long now = System.currentTimeMillis();
+        if (game.commands.drain() > 0) {
+            game.lastActivityMs = now;
         }
-    }
-
-    private void handlePoisonDamage(long now) {
-        Map<Integer, Long> poisoned = playerStateManager.getPoisonedPlayers();
-        if (poisoned.isEmpty()) return;
-        // 使用迭代器遍历以安全地移除元素
-        for (Iterator<Map.Entry<Integer, Long>> it = poisoned.entrySet().iterator(); it.hasNext();) {
-            Map.Entry<Integer, Long> entry = it.next();
-            Integer playerId = entry.getKey();
-            Long poisonEndTime = entry.getValue();
-            if (now >= poisonEndTime) {
-                // 中毒时间到，移除效果
-                it.remove();
-            } else {
-                // 每秒造成2点伤害 (可以调整)
-                // 通过取模运算，确保大约每秒触发一次
-                if (now % 1000 < gameConfig.getEngine().getTickRateMs()) {
-                    handleEnvironmentalDamage(playerId, 2, "POISON");                 }
-            }
+        // 本 tick 所有碰撞查询共用的位置帧，每名玩家按同一时间戳只插值一次
+        game.frame.build(game.world, now);
+        buildGrid(game);
+        // 只处理已到期的定时事件（复活、中毒、超时、补给）
+        fireTimers(game, now);
+        // 更新本局所有子弹的位置并检查碰撞；超时等规则已判定结束时不再推进
+        if (game.endReason == null) {
+            updateProjectiles(game, deltaTime);
         }
-    }
-
-    private void handleEnvironmentalDamage(int victimId, int damage, String damageType) {
-        // 环境伤害没有攻击者，可以用一个特殊ID（如-1）或 victimId 本身
-        GameRoomService.DamageResult res = playerStateManager.applyDamage(-1, victimId, damage);
-
-        // 同样需要广播 damage 消息，让客户端知道受到了伤害
-        ObjectNode dmg = mapper.createObjectNode();
-        dmg.put("type", "damage");
-        dmg.put("attacker", -1); // -1 代表环境伤害
-        dmg.put("victim", victimId);
-        dmg.put("damage", damage);
-        dmg.put("hp", res.hp);
-        dmg.put("dead", res.dead);
-        // 环境伤害通常没有击退效果
-        dmg.put("kx", 0);
-        dmg.put("ky", 0);
-        dmg.put("srvTS", System.currentTimeMillis());
-        Long gameId = playerSessionService.getActiveGameId(victimId);
-        if (gameId != null) {
-            gameSessionManager.broadcast(gameId, dmg.toString());
-        }
-
-        // 如果玩家因此死亡，记录死亡事件（但没有击杀者）
-        if (res.dead) {
-            playerStateManager.recordKill(null, victimId);
+        // 本 tick 累加的伤害统一扣血，结算死亡与击杀
+        resolveDamage(game, now);
+        if (endIfDecided(game)) {
+            return;
         }
+        broadcastScoreboard(game);
+        tryHibernate(game, now);
     }
 
-    // 子弹更新与碰撞检测逻辑
-    private void updateProjectiles(double deltaTime) {
-        List<ServerProjectile> projectiles = projectileManager.getProjectiles();
-        if (projectiles.isEmpty()) return;
-
-        final double HB_OFF_X = 80.0, HB_OFF_Y = 20.0, HB_W = 86.0, HB_H = 160.0;
-        List<ServerProjectile> projectilesToRemove = new ArrayList<>();
-
-        // 使用迭代器或复制列表以安全地移除元素
-        for (ServerProjectile proj : projectiles) {
-
-            boolean shouldRemove = false;
-
-            // --- 默认子弹/射线枪逻辑 ---
-            double oldX = proj.getX();
-            double oldY = proj.getY();
-            proj.update(deltaTime);
-            boolean hit = false;
-
-            GameManager.ActiveGame currentGame = gameManager.getActiveGames().get(proj.getGameId());
-            if (currentGame == null) {
-                projectilesToRemove.add(proj); // 游戏已结束，标记待移除
-                continue;
-            }
-            for (Integer victimId : currentGame.playerIds) {
-                if (victimId.equals(proj.getShooterId()) || playerStateManager.isDead(victimId)) {
-                    continue;
-                }
-                Optional<GameRoomService.StateSnapshot> sOpt = playerStateManager.interpolateAt(victimId, System.currentTimeMillis());
-                if (sOpt.isEmpty()) continue;
-
-                GameRoomService.StateSnapshot victimState = sOpt.get();
-                double minX = victimState.x + HB_OFF_X;
-                double minY = victimState.y + HB_OFF_Y;
-                double maxX = minX + HB_W;
-                double maxY = minY + HB_H;
-
-                double tEnter = HitMath.raySegmentVsAABB(oldX, oldY, proj.getX() - oldX, proj.getY() - oldY, minX, minY, maxX, maxY);
-
-                if (tEnter <= 1.0) {
-                    // ★ 伤害修复：使用子弹自身的伤害值，而不是硬编码的 10 ★
-                    handleHit(proj, victimId, proj.getDamage());
-                    hit = true;
+    /**
+     * 分发房间时间轮上已到期的事件。
+     */
+    private void fireTimers(GameManager.ActiveGame game, long now) {
+        gameTimerService.advance(game, now);
+        TimingWheel.Timeout t;
+        while ((t = gameTimerService.pollExpired(game)) != null) {
+            switch (t.getType()) {
+                case RESPAWN:
+                    if (game.world.isDead(t.getArg())) {
+                        respawnPlayer(game, t.getArg());
+                    }
+                    break;
+                case POISON_TICK:
+                    handlePoisonTick(game, t.getArg(), t.getDeadlineMs());
+                    break;
+                case SUPPLY_SPAWN:
+                    itemSpawnService.spawnItem(game, now);
+                    gameTimerService.scheduleSupplySpawn(game, t.getDeadlineMs() + gameConfig.getSupply().getSpawnIntervalMs());
+                    break;
+                case SUPPLY_EXPIRE:
+                    itemSpawnService.expireDrop(game, t.getArg());
+                    break;
+                case MATCH_END:
+                    gameRuleEngine.publish(game, GameEvent.timerExpired());
+                    break;
+                case RECONNECT_GRACE:
+                    expireReconnectGrace(game, t.getArg());
                     break;
-                }
             }
+        }
+    }
 
-            if (hit || proj.isOutOfRange(proj.getX(), proj.getY())) {
-                projectilesToRemove.add(proj); // 旧代码是 iterator.remove()
+    /**
+     * 重连宽限期到期：仍未重连的玩家按离开处理，交给规则判断是否结束对局。
+     * slot 为 -1 时检查全部玩家（从检查点恢复的对局）。
+     */
+    private void expireReconnectGrace(GameManager.ActiveGame game, int slot) {
+        if (slot != -1) game.world.swapReconnectGrace(slot, null);
+        for (int s = 0; s < game.world.size(); s++) {
+            if (slot != -1 && s != slot) continue;
+            int playerId = game.world.userIdAt(s);
+            if (gameSessionManager.isConnected(game.gameId, playerId)) continue;
+            if (game.gameId.equals(playerSessionService.getActiveGameId(playerId))) {
+                playerSessionService.removePlayerFromGame(playerId);
+                onlineUserService.updateUserStatus(playerId, UserStatus.ONLINE);
+                System.out.println("Player " + playerId + " did not reconnect to game " + game.gameId);
             }
-
+            gameRuleEngine.publish(game, GameEvent.playerLeft(playerId));
         }
     }
 
-    // 处理命中事件的方法
-    private void handleHit(ServerProjectile projectile, int victimId, int damage) {
-        int shooterId = projectile.getShooterId();
-
-        GameRoomService.DamageResult res = playerStateManager.applyDamage(shooterId, victimId, damage);
-        if (res.dead) {
-            playerStateManager.recordKill(shooterId, victimId);
-        }
+    /**
+     * 规则引擎已判定结束（击杀数、超时、玩家全部离开等）时结束对局并返回 true。
+     * 事件发生时只记录结束原因，在这里统一结束，避免在结算中途清理房间状态。
+     */
+    private boolean endIfDecided(GameManager.ActiveGame game) {
+        if (game.endReason == null) return false;
+        System.out.println("Game " + game.gameId + " is over. Reason: " + game.endReason + " (" + game.mode.getName() + ")");
+        endGame(game);
+        return true;
+    }
 
-        double sign = projectile.getVelocityX() >= 0 ? 1.0 : -1.0;
-        double kx = sign * 220.0; // 击退效果
-        double ky = 0.0;
+    /**
+     * 房间一段时间没有入站命令、没有飞行中的子弹时，状态只会被定时事件改变，
+     * 让它休眠到时间轮上的下一个事件，期间不再做任何 tick 工作。
+     */
+    private void tryHibernate(GameManager.ActiveGame game, long now) {
+        if (now - game.lastActivityMs < gameConfig.getEngine().getHibernateAfterMs()) return;
+        if (game.projectiles.size() > 0) return;
+        game.hibernate(gameTimerService.nextDeadline(game));
+    }
 
-        ObjectNode dmg = mapper.createObjectNode();
-        dmg.put("type", "damage");
-        dmg.put("attacker", shooterId);
-        dmg.put("victim", victimId);
-        dmg.put("damage", damage);
-        dmg.put("hp", res.hp);
-        dmg.put("dead", res.dead);
-        dmg.put("kx", kx);
-        dmg.put("ky", ky);
-        dmg.put("srvTS", System.currentTimeMillis());
-        Long gameId = playerSessionService.getActiveGameId(projectile.getShooterId());
-        if (gameId != null) {
-            gameSessionManager.broadcast(gameId, dmg.toString());
+    /**
+     * 中毒每秒结算一次：按上一次的计划时间排下一次，避免漂移；到达中毒结束时间或玩家死亡后停止。
+     */
+    private void handlePoisonTick(GameManager.ActiveGame game, int slot, long scheduledAt) {
+        GameWorld world = game.world;
+        long poisonEndTime = world.getPoisonUntil(slot);
+        if (poisonEndTime == 0) return;
+        if (world.isDead(slot)) {
+            world.clearPoison(slot);
+            return;
+        }
+        // 每秒造成2点伤害 (可以调整)
+        handleEnvironmentalDamage(game, slot, 2, "POISON");
+        long next = scheduledAt + GameTimerService.POISON_INTERVAL_MS;
+        if (next <= poisonEndTime && !world.isDead(slot)) {
+            gameTimerService.schedulePoisonTick(game, slot, next);
+        } else {
+            // 中毒时间到，移除效果
+            world.clearPoison(slot);
         }
     }
 
+    private void handleEnvironmentalDamage(GameManager.ActiveGame game, int victimSlot, int damage, String damageType) {
+        // 环境伤害没有攻击者，也没有击退效果
+        game.damage.add(game.world, GameWorld.NO_SLOT, victimSlot, damage, 0, 0);
+    }
 
-    private void handleRespawns(long now) {
-        long respawnDelay = gameConfig.getPlayer().getRespawnTimeMs();
-        Map<Integer, Long> deathTimestamps = playerStateManager.getDeathTimestamps();
-        for (Map.Entry<Integer, Long> entry : new ConcurrentHashMap<>(deathTimestamps).entrySet()) {
-            if (now - entry.getValue() >= respawnDelay) {
-                respawnPlayer(entry.getKey());
+    /**
+     * tick 末尾统一扣血：每名受伤玩家只扣一次累加的伤害，致命时记录战绩、登记复活并发布击杀/死亡事件，
+     * 本 tick 的所有伤害合并为一条 damage_batch 广播。attacker 为 -1 代表环境伤害。
+     */
+    private void resolveDamage(GameManager.ActiveGame game, long now) {
+        DamageAccumulator acc = game.damage;
+        if (acc.size() == 0) return;
+        GameWorld world = game.world;
+
+        ObjectNode batch = mapper.createObjectNode();
+        batch.put("type", "damage_batch");
+        batch.put("srvTS", now);
+        ArrayNode hits = batch.putArray("hits");
+        for (int i = 0; i < acc.size(); i++) {
+            int slot = acc.victimAt(i);
+            int victimId = world.userIdAt(slot);
+            int attackerSlot = acc.getAttacker(slot);
+            int attackerId = attackerSlot == GameWorld.NO_SLOT ? -1 : world.userIdAt(attackerSlot);
+            GameRoomService.DamageResult res = world.applyDamage(GameWorld.NO_SLOT, slot, acc.getAmount(slot));
+            if (res.dead) {
+                world.recordKill(attackerSlot, slot);
+                gameTimerService.scheduleRespawn(game, slot, now);
+                gameRuleEngine.publish(game, attackerSlot == GameWorld.NO_SLOT
+                        ? GameEvent.death(victimId)
+                        : GameEvent.kill(attackerId, victimId));
             }
+
+            ObjectNode hit = hits.addObject();
+            hit.put("attacker", attackerId);
+            hit.put("victim", victimId);
+            hit.put("damage", acc.getAmount(slot));
+            hit.put("hp", res.hp);
+            hit.put("dead", res.dead);
+            hit.put("kx", acc.getKnockX(slot));
+            hit.put("ky", acc.getKnockY(slot));
         }
+        acc.clear();
+        gameSessionManager.broadcast(game.gameId, batch.toString());
     }
 
-    private void checkGameOverConditions(long now) {
-        // 获取所有正在进行的游戏
-        Map<Long, GameManager.ActiveGame> activeGames = gameManager.getActiveGames();
-        if (activeGames.isEmpty()) return;
-
-        int killsToWin = gameConfig.getRules().getKillsToWin();
-        long maxDuration = gameConfig.getRules().getMaxDurationMs();
-
-        // 遍历每一个游戏实例
-        for (GameManager.ActiveGame game : activeGames.values()) {
-            boolean timeIsUp = (now - game.startTime) >= maxDuration;
-            boolean scoreReached = false;
+    /**
+     * 按地图尺寸把本 tick 的位置帧装入均匀网格，人数少于 grid-min-players 时网格不启用，子弹直接遍历整帧。
+     */
+    private void buildGrid(GameManager.ActiveGame game) {
+        GameConfig.Physics physics = gameConfig.getPhysics();
+        GameConfig.Engine engine = gameConfig.getEngine();
+        game.grid.build(game.frame, physics.getMapW(), physics.getMapH(),
+                engine.getGridCellSize(), engine.getGridMinPlayers());
+    }
 
-            // 检查是否有玩家达到胜利分数
-            for (Integer playerId : game.playerIds) {
-                if (playerStateManager.getStats(playerId).get("kills") >= killsToWin) {
-                    scoreReached = true;
-                    break;
-                }
+    // 子弹更新与碰撞检测逻辑
+    private void updateProjectiles(GameManager.ActiveGame currentGame, double deltaTime) {
+        ProjectilePool projectiles = currentGame.projectiles;
+        if (projectiles.size() == 0) return;
+
+        ProjectileSweep sweep = currentGame.sweep;
+        PositionFrame frame = currentGame.frame;
+        GameWorld world = currentGame.world;
+
+        // 1. 对照本 tick 的位置帧推进子弹并检测命中：大房间按块并行，小房间在本线程顺序执行
+        GameConfig.Engine engine = gameConfig.getEngine();
+        boolean parallel = currentGame.playerIds.size() >= engine.getParallelMinPlayers()
+                && projectiles.size() >= engine.getParallelMinProjectiles();
+        sweep.sweep(projectiles, frame, currentGame.grid, currentGame.terrain, deltaTime,
+                parallel ? simulationPool : null, engine.getParallelChunkSize());
+
+        // 2. 按子弹顺序统一结算伤害；原命中对象已在本步被打死时继续查找后面的玩家
+        int n = projectiles.size();
+        for (int i = 0; i < n; i++) {
+            int v = sweep.getHit(i);
+            while (v != ProjectileSweep.NO_HIT && currentGame.damage.isDown(world, frame.slotAt(v))) {
+                v = sweep.firstHit(i, projectiles, v + 1);
             }
-
-            // 如果满足任一结束条件，则结束游戏
-            if (timeIsUp || scoreReached) {
-                System.out.println("Game " + game.gameId + " is over. Reason: " + (timeIsUp ? "Time is up" : "Score reached"));
-                endGame(game);
+            boolean hit = v != ProjectileSweep.NO_HIT;
+            if (hit) {
+                handleHit(currentGame, i, frame.slotAt(v));
+            }
+            // 命中、撞墙或飞出射程（从发射点算起）的子弹在本步结束时移除
+            if (hit || sweep.isBlocked(i) || projectiles.isOutOfRange(i)) {
+                sweep.markRemoved(i);
             }
         }
+        sweep.removeMarked(projectiles);
+    }
+
+    // 处理命中事件的方法
+    private void handleHit(GameManager.ActiveGame game, int projectile, int victimSlot) {
+        ProjectilePool projectiles = game.projectiles;
+        double sign = projectiles.getVelocityX(projectile) >= 0 ? 1.0 : -1.0;
+        double kx = sign * 220.0; // 击退效果
+        double ky = 0.0;
+        // 只累加，死亡与击杀在 tick 末尾的 resolveDamage 中结算
+        game.damage.add(game.world, projectiles.getShooterSlot(projectile), victimSlot,
+                projectiles.getDamage(projectile), kx, ky);
     }
 
+
     private void endGame(GameManager.ActiveGame game) {
         // 1. 收集所有玩家的最终战绩
         List<MatchParticipant> results = new ArrayList<>();
         Map<Integer, Integer> characterSelections = game.playerCharacterSelections;
         for (Integer playerId : game.playerIds) {
-            Map<String, Integer> stats = playerStateManager.getStats(playerId);
             MatchParticipant p = new MatchParticipant();
             p.setUserId(playerId);
             p.setMatchId(game.gameId);
-            p.setKills(stats.get("kills"));
-            p.setDeaths(stats.get("deaths"));
+            int slot = game.world.slotOf(playerId);
+            p.setKills(game.world.getKills(slot));
+            p.setDeaths(game.world.getDeaths(slot));
             p.setCharacterId(characterSelections.getOrDefault(playerId, 1)); // 如果找不到，默认为角色1
             results.add(p);
         }
@@ -263,41 +304,29 @@ public class GameLoopService {
             results.get(i).setRanking(i + 1);
         }
 
-        // 3. 通知 GameManager 将结果上报给大厅模块
+        // 3. 通知 GameManager 将结果上报给大厅模块（入库在结算线程上进行）
         gameManager.onGameConcluded(game.gameId, results);
 
-        // 4. 查询本局对局的元数据（地图名、模式等）
-        Match matchInfo = gameManager.getMatchInfo(game.gameId);
-        GameMap mapInfo = null;
-        if (matchInfo != null) {
-            mapInfo = mapMapper.selectById(matchInfo.getMapId());
-        }
+        // 4. 本局对局的元数据（地图名、模式、昵称、角色名）开局时已随房间缓存，这里不查询数据库
+        Match matchInfo = game.matchInfo;
 // 5. 准备一个与 MatchDetailDTO 结构类似的 Map 用于发送
         Map<String, Object> detailedResults = new HashMap<>();
         detailedResults.put("matchId", game.gameId);
         detailedResults.put("gameMode", matchInfo != null ? matchInfo.getGameMode() : "未知模式");
-        detailedResults.put("mapName", mapInfo != null ? mapInfo.getName() : "未知地图");
+        detailedResults.put("mapName", game.mapName);
         detailedResults.put("startTime", matchInfo != null ? matchInfo.getStartTime().toString() : "");
         detailedResults.put("endTime", java.time.LocalDateTime.now().toString()); // 结束时间用当前时间
 
         // 6. 转换玩家战绩列表，加入昵称和角色名
-        List<Integer> userIds = results.stream().map(MatchParticipant::getUserId).collect(java.util.stream.Collectors.toList());
-        Map<Integer, org.csu.pixelstrikebackend.lobby.entity.UserProfile> userProfileMap = userProfileMapper.selectBatchIds(userIds).stream()
-                .collect(java.util.stream.Collectors.toMap(org.csu.pixelstrikebackend.lobby.entity.UserProfile::getUserId, up -> up));
-
-        List<Integer> characterIds = results.stream().map(MatchParticipant::getCharacterId).distinct().collect(java.util.stream.Collectors.toList());
-        Map<Integer, String> characterMap = characterMapper.selectBatchIds(characterIds).stream()
-                .collect(java.util.stream.Collectors.toMap(org.csu.pixelstrikebackend.lobby.entity.GameCharacter::getId, org.csu.pixelstrikebackend.lobby.entity.GameCharacter::getName));
-
         List<Map<String, Object>> participantsForJson = new ArrayList<>();
         for (MatchParticipant p : results) {
             Map<String, Object> participantMap = new HashMap<>();
             participantMap.put("userId", p.getUserId());
-            participantMap.put("nickname", userProfileMap.getOrDefault(p.getUserId(), new org.csu.pixelstrikebackend.lobby.entity.UserProfile()).getNickname());
+            participantMap.put("nickname", game.nicknames.get(p.getUserId()));
             participantMap.put("kills", p.getKills());
             participantMap.put("deaths", p.getDeaths());
             participantMap.put("ranking", p.getRanking());
-            participantMap.put("characterName", characterMap.getOrDefault(p.getCharacterId(), "未知角色"));
+            participantMap.put("characterName", game.characterNames.getOrDefault(p.getCharacterId(), "未知角色"));
             participantsForJson.add(participantMap);
         }
         detailedResults.put("participants", participantsForJson);
@@ -311,9 +340,10 @@ public class GameLoopService {
         gameSessionManager.broadcast(game.gameId, gameOverMsg.toString());
     }
     
-    private void respawnPlayer(Integer userId) {
+    private void respawnPlayer(GameManager.ActiveGame game, int slot) {
+        int userId = game.world.userIdAt(slot);
         System.out.println("Respawning player " + userId);
-        playerStateManager.respawnPlayer(userId);
+        game.world.respawn(slot);
 
         /*double spawnX = 500;
         double spawnY = gameConfig.getPhysics().getGroundY() - 128; // 使用配置
@@ -331,49 +361,45 @@ public class GameLoopService {
         respawnMsg.put("hp", gameConfig.getPlayer().getMaxHealth());
         respawnMsg.put("serverTime", System.currentTimeMillis());
 
-        Long gameId = playerSessionService.getActiveGameId(userId);
-        if (gameId != null) {
-            gameSessionManager.broadcast(gameId, respawnMsg.toString());
-        }
+        gameSessionManager.broadcast(game.gameId, respawnMsg.toString());
     }
 
-    private void broadcastScoreboard() {
-        // 遍历所有正在进行的游戏
-        for (GameManager.ActiveGame game : gameManager.getActiveGames().values()) {
-            Long gameId = game.getGameId();
-            List<Map<String, Object>> scoreboard = new ArrayList<>();
-            List<Integer> playerIds = game.getPlayerIds();
-
-            // 批量获取玩家的昵称，提高效率
-            if (playerIds.isEmpty()) continue;
-            List<UserProfile> profiles = userProfileMapper.selectBatchIds(playerIds);
-            Map<Integer, String> idToNicknameMap = profiles.stream()
-                    .collect(Collectors.toMap(UserProfile::getUserId, UserProfile::getNickname));
-
-            // 为每个玩家构建战绩信息
-            for (Integer playerId : playerIds) {
-                Map<String, Integer> stats = playerStateManager.getStats(playerId);
-                Map<String, Object> playerData = new HashMap<>();
-                playerData.put("id", playerId);
-                playerData.put("nickname", idToNicknameMap.getOrDefault(playerId, "玩家 " + playerId));
-                playerData.put("kills", stats.get("kills"));
-                playerData.put("deaths", stats.get("deaths"));
-                scoreboard.add(playerData);
-            }
-
-            // 按击杀数降序排序
-            scoreboard.sort((p1, p2) -> (Integer)p2.get("kills") - (Integer)p1.get("kills"));
+    private void broadcastScoreboard(GameManager.ActiveGame game) {
+        long now = System.currentTimeMillis();
+        // 降频期间计分板是非关键消息，只保留每秒一次用于刷新剩余时间
+        if (game.shedNonCritical() && now - game.lastScoreboardMs < SHED_SCOREBOARD_INTERVAL_MS) return;
+        game.lastScoreboardMs = now;
+        Long gameId = game.getGameId();
+        List<Map<String, Object>> scoreboard = new ArrayList<>();
+        List<Integer> playerIds = game.getPlayerIds();
+
+        // 昵称在开局时已随房间缓存，tick 中不再查询数据库
+        if (playerIds.isEmpty()) return;
+        Map<Integer, String> idToNicknameMap = game.nicknames;
+
+        // 为每个玩家构建战绩信息
+        for (Integer playerId : playerIds) {
+            Map<String, Object> playerData = new HashMap<>();
+            playerData.put("id", playerId);
+            playerData.put("nickname", idToNicknameMap.getOrDefault(playerId, "玩家 " + playerId));
+            int slot = game.world.slotOf(playerId);
+            playerData.put("kills", game.world.getKills(slot));
+            playerData.put("deaths", game.world.getDeaths(slot));
+            scoreboard.add(playerData);
+        }
 
-            long elapsedTime = System.currentTimeMillis() - game.startTime;
-            long maxDuration = gameConfig.getRules().getMaxDurationMs();
-            int remainingSeconds = (int) Math.max(0, (maxDuration - elapsedTime) / 1000);
+        // 按击杀数降序排序
+        scoreboard.sort((p1, p2) -> (Integer)p2.get("kills") - (Integer)p1.get("kills"));
 
-            // 构建并发送包含排行榜和剩余时间的消息
-            ObjectNode msg = mapper.createObjectNode();
-            msg.put("type", "scoreboard_update");
-            msg.put("gameTimeRemainingSeconds", remainingSeconds); // <-- 将剩余时间加入消息体
-            msg.set("scores", mapper.valueToTree(scoreboard));
-            gameSessionManager.broadcast(gameId, msg.toString());
-        }
+        long elapsedTime = now - game.startTime;
+        long maxDuration = gameConfig.getRules().getMaxDurationMs();
+        int remainingSeconds = (int) Math.max(0, (maxDuration - elapsedTime) / 1000);
+
+        // 构建并发送包含排行榜和剩余时间的消息
+        ObjectNode msg = mapper.createObjectNode();
+        msg.put("type", "scoreboard_update");
+        msg.put("gameTimeRemainingSeconds", remainingSeconds); // <-- 将剩余时间加入消息体
+        msg.set("scores", mapper.valueToTree(scoreboard));
+        gameSessionManager.broadcast(gameId, msg.toString());
     }
 }
\ No newline at end of file
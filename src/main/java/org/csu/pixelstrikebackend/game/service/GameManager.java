@@ -1,11 +1,32 @@
 package org.csu.pixelstrikebackend.game.service;
 
+import jakarta.annotation.PreDestroy;
 import lombok.Getter;
+import org.csu.pixelstrikebackend.config.GameConfig;
+import org.csu.pixelstrikebackend.game.AdmissionDecision;
 import org.csu.pixelstrikebackend.game.GameLobbyBridge;
+import org.csu.pixelstrikebackend.game.engine.DamageAccumulator;
+import org.csu.pixelstrikebackend.game.engine.GameWorld;
+import org.csu.pixelstrikebackend.game.engine.MapCollision;
+import org.csu.pixelstrikebackend.game.engine.PlayerGrid;
+import org.csu.pixelstrikebackend.game.engine.PositionFrame;
+import org.csu.pixelstrikebackend.game.engine.ProjectilePool;
+import org.csu.pixelstrikebackend.game.engine.ProjectileSweep;
+import org.csu.pixelstrikebackend.game.engine.RoomCommandQueue;
+import org.csu.pixelstrikebackend.game.engine.SupplyDirector;
+import org.csu.pixelstrikebackend.game.engine.TickClock;
+import org.csu.pixelstrikebackend.game.engine.TimingWheel;
+import org.csu.pixelstrikebackend.game.rules.GameMode;
+import org.csu.pixelstrikebackend.lobby.entity.GameCharacter;
+import org.csu.pixelstrikebackend.lobby.entity.GameMap;
 import org.csu.pixelstrikebackend.lobby.entity.Match;
 import org.csu.pixelstrikebackend.lobby.entity.MatchParticipant;
+import org.csu.pixelstrikebackend.lobby.entity.UserProfile;
 import org.csu.pixelstrikebackend.lobby.enums.UserStatus;
+import org.csu.pixelstrikebackend.lobby.mapper.CharacterMapper;
+import org.csu.pixelstrikebackend.lobby.mapper.MapMapper;
 import org.csu.pixelstrikebackend.lobby.mapper.MatchMapper;
+import org.csu.pixelstrikebackend.lobby.mapper.UserProfileMapper;
 import org.csu.pixelstrikebackend.lobby.service.MatchService;
 import org.csu.pixelstrikebackend.lobby.service.OnlineUserService;
 import org.csu.pixelstrikebackend.lobby.service.PlayerSessionService;
@@ -14,9 +35,14 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class GameManager implements GameLobbyBridge {
@@ -26,11 +52,23 @@ public class GameManager implements GameLobbyBridge {
     @Autowired private PlayerSessionService playerSessionService;
     @Autowired private OnlineUserService onlineUserService;
     @Autowired private MatchMapper matchMapper;
-    @Autowired private ProjectileManager projectileManager; // 新增注入
-    @Autowired private SupplyDropManager supplyDropManager; // 新增注入
-    @Autowired private PlayerStateManager playerStateManager;
+    @Autowired private UserProfileMapper userProfileMapper;
+    @Autowired private MapMapper mapMapper;
+    @Autowired private CharacterMapper characterMapper;
+    @Autowired private GameTickScheduler gameTickScheduler;
+    @Autowired private GameConfig gameConfig;
+    @Autowired private GameTimerService gameTimerService;
+    @Autowired private GameCapacityService gameCapacityService;
+    @Autowired private GameRuleEngine gameRuleEngine;
+    @Autowired private MapDataService mapDataService;
     @Getter
     private final Map<Long, ActiveGame> activeGames = new ConcurrentHashMap<>();
+    // 战绩入库在这里执行：对局在 tick 线程上结束，数据库往返不能占用同一工作线程上其他房间的 tick
+    private final ExecutorService settlementExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "match-settlement");
+        t.setDaemon(true);
+        return t;
+    });
 
     @Autowired
     public GameManager(@Lazy GameRoomService gameRoomService, MatchService matchService) {
@@ -40,38 +78,103 @@ public class GameManager implements GameLobbyBridge {
     public Match getMatchInfo(Long gameId) {
         return matchMapper.selectById(gameId);
     }
+
+    /**
+     * 向房间投递一条命令，由房间的 tick 线程在下一步开始时执行。房间不存在时返回 false。
+     */
+    public boolean submit(Long gameId, Runnable command) {
+        ActiveGame game = gameId == null ? null : activeGames.get(gameId);
+        if (game == null) return false;
+        game.commands.offer(command);
+        if (game.hibernating) {
+            gameTickScheduler.wake(gameId);
+        }
+        return true;
+    }
+
+    @Override
+    public AdmissionDecision checkAdmission(int playerCount) {
+        return gameCapacityService.checkAdmission(playerCount);
+    }
+
     @Override
     public void onMatchSuccess(Long gameId, Map<Integer, Integer> playerCharacterSelections) {
         List<Integer> playerIds = new ArrayList<>(playerCharacterSelections.keySet());
 
-        activeGames.put(gameId, new ActiveGame(gameId, playerIds, playerCharacterSelections));
+        // 对局元数据在开局时查询一次并随房间缓存，规则按其中的 gameMode 选择
+        Match matchInfo = getMatchInfo(gameId);
+        GameMode mode = gameRuleEngine.resolve(matchInfo != null ? matchInfo.getGameMode() : null);
+        TickClock clock = new TickClock(gameConfig.getEngine().getTickRateMs(), gameConfig.getEngine().getMaxCatchUpSteps());
+        ActiveGame game = new ActiveGame(gameId, playerIds, playerCharacterSelections, clock,
+                gameTimerService.createWheel(System.currentTimeMillis()),
+                new GameWorld(playerIds, gameConfig.getPlayer().getMaxHealth()), mapDataService.collisionFor(matchInfo),
+                new SupplyDirector(mapDataService.supplySpawnsFor(matchInfo), gameConfig.getSupply().getMaxLive(),
+                        gameConfig.getSupply().getPickupRadius()),
+                gameConfig.getPlayer().getMaxProjectiles(), matchInfo, mode);
+        for (UserProfile profile : userProfileMapper.selectBatchIds(playerIds)) {
+            game.nicknames.put(profile.getUserId(), profile.getNickname());
+        }
+        loadDisplayNames(game);
+        gameTimerService.onGameStarted(game);
+        activeGames.put(gameId, game);
         playerIds.forEach(playerId -> playerSessionService.registerPlayerInGame(playerId, gameId));
         gameRoomService.prepareGame(gameId, playerIds);
+        gameTickScheduler.assign(game);
+    }
+
+    /**
+     * 加载结算界面要显示的地图名和角色名并随房间缓存，结束对局时不再查询数据库。
+     * 会访问数据库，只在开局或从检查点恢复时调用，不能在 tick 线程上调用。
+     */
+    public void loadDisplayNames(ActiveGame game) {
+        if (game.matchInfo != null && game.matchInfo.getMapId() != null) {
+            GameMap map = mapMapper.selectById(game.matchInfo.getMapId());
+            if (map != null) game.mapName = map.getName();
+        }
+        List<Integer> characterIds = new ArrayList<>(new HashSet<>(game.playerCharacterSelections.values()));
+        if (characterIds.isEmpty()) return;
+        for (GameCharacter character : characterMapper.selectBatchIds(characterIds)) {
+            game.characterNames.put(character.getId(), character.getName());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 等待已提交的战绩写完再关闭
+        settlementExecutor.shutdown();
+        try {
+            settlementExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     /**
      * 这是游戏结束时唯一的权威状态清理点。
+     * 由房间的 tick 线程调用：内存中的清理立即完成，战绩入库交给 settlementExecutor。
      */
     @Override
     public void onGameConcluded(Long gameId, List<MatchParticipant> results) {
         ActiveGame finishedGame = activeGames.remove(gameId);
         if (finishedGame != null) {
+            finishedGame.concluded = true;
+            gameTickScheduler.release(gameId);
             System.out.println("Game " + gameId + " concluded. Authority cleanup started for players: " + finishedGame.playerIds);
 
-            // ★ 新增：遍历玩家，清理他们的游戏内状态 ★
+            // 玩家的局内状态随 finishedGame.world 一起丢弃，这里只恢复大厅状态
             for (Integer playerId : finishedGame.playerIds) {
                 playerSessionService.removePlayerFromGame(playerId);
                 onlineUserService.updateUserStatus(playerId, UserStatus.ONLINE);
-
-                // ★ 新增：调用 PlayerStateManager 清理该玩家的数据 ★
-                playerStateManager.cleanupPlayerState(playerId);
             }
-
-            // ★ 新增：清理该局游戏产生的所有子弹和补给品 ★
-            projectileManager.cleanupProjectilesByGame(gameId);
-            supplyDropManager.cleanupDropsByGame(gameId);
+            // 子弹和补给品随房间一起丢弃
         }
-        matchService.processMatchResults(gameId, results);
+        settlementExecutor.execute(() -> {
+            try {
+                matchService.processMatchResults(gameId, results);
+            } catch (RuntimeException e) {
+                System.err.println("Failed to save results for game " + gameId + ": " + e.getMessage());
+            }
+        });
     }
 
 
@@ -81,13 +184,65 @@ public class GameManager implements GameLobbyBridge {
         @Getter
         public final List<Integer> playerIds;
         public final Map<Integer, Integer> playerCharacterSelections;
-        public final long startTime;
+        public long startTime; // 从检查点恢复时按停机时长顺延
+        public final TickClock clock; // 房间自己的固定步长时钟
+        public final RoomCommandQueue commands = new RoomCommandQueue(); // 入站命令，tick 线程消费
+        public final TimingWheel timers; // 房间内的定时事件，只在 tick 线程访问
+        public final GameWorld world; // 按槽位存放的玩家权威状态，只在 tick 线程访问
+        public final MapCollision terrain; // 地图静态碰撞网格，不可变，同一地图的房间共享
+        public final SupplyDirector supplies; // 场上的补给品，只在 tick 线程访问
+        public final DamageAccumulator damage; // 本 tick 累加的伤害，tick 末尾统一结算，只在 tick 线程访问
+        public final ProjectilePool projectiles; // 飞行中的子弹，只在 tick 线程访问
+        public final Match matchInfo; // 开局时查询的对局记录，可能为 null
+        public final GameMode mode; // 本局的玩法规则
+        public final Map<Integer, String> nicknames = new HashMap<>(); // 开局时加载的玩家昵称，之后只读
+        public final Map<Integer, String> characterNames = new HashMap<>(); // 开局时加载的角色 ID -> 角色名，之后只读
+        public String mapName = "未知地图"; // 开局时加载的地图名，之后只读
+        public String endReason; // 规则判定的结束原因，非 null 时在当前步结束对局，只在 tick 线程访问
+        public final ProjectileSweep sweep = new ProjectileSweep(); // 子弹推进与命中检测的复用缓冲，只在 tick 线程访问
+        public final PositionFrame frame = new PositionFrame(); // 本 tick 的玩家位置帧，只在 tick 线程构建
+        public final PlayerGrid grid = new PlayerGrid(); // 由 frame 构建的玩家网格，子弹宽相位检测用
+        public volatile boolean concluded; // 已结束，工作线程不再推进
+        public volatile boolean hibernating; // 休眠中，工作线程跳过该房间直到有新命令或到达 wakeAtMs
+        public volatile long wakeAtMs; // 休眠房间的下一个定时事件时间
+        public long lastActivityMs; // 最近一次收到入站命令的时间，只在 tick 线程访问
+        public long lastScoreboardMs; // 最近一次广播计分板的时间，只在 tick 线程访问
 
-        public ActiveGame(Long gameId, List<Integer> playerIds, Map<Integer, Integer> playerCharacterSelections) { // 4. 修改构造函数
+        public ActiveGame(Long gameId, List<Integer> playerIds, Map<Integer, Integer> playerCharacterSelections, TickClock clock, TimingWheel timers,
+                          GameWorld world, MapCollision terrain, SupplyDirector supplies, int maxProjectilesPerPlayer, Match matchInfo, GameMode mode) { // 4. 修改构造函数
             this.gameId = gameId;
             this.playerIds = playerIds;
             this.playerCharacterSelections = playerCharacterSelections; // 5. 保存映射
             this.startTime = System.currentTimeMillis();
+            this.clock = clock;
+            this.timers = timers;
+            this.world = world;
+            this.terrain = terrain;
+            this.supplies = supplies;
+            this.damage = new DamageAccumulator(world.size());
+            this.projectiles = new ProjectilePool(world.size(), 64, maxProjectilesPerPlayer);
+            this.matchInfo = matchInfo;
+            this.mode = mode;
+            this.lastActivityMs = this.startTime;
+        }
+
+        /**
+         * 房间因过载被降频时，丢弃计分板、拾取提示等非关键广播；伤害、复活、对局结束等消息不受影响。
+         */
+        public boolean shedNonCritical() {
+            return clock.getRateLevel() > 0;
+        }
+
+        /**
+         * 在 tick 线程上让房间进入休眠，直到 wakeAtMs 或收到新命令。
+         * 置位后再检查一次队列：如果生产者在置位前入队（因此没有触发唤醒），这里会立即撤销休眠，避免丢失唤醒。
+         */
+        public void hibernate(long wakeAtMs) {
+            this.wakeAtMs = wakeAtMs;
+            this.hibernating = true;
+            if (!commands.isEmpty()) {
+                this.hibernating = false;
+            }
         }
     }
 }
\ No newline at end of file
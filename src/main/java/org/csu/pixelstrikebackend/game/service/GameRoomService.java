@@ -2,16 +2,21 @@ package org.csu.pixelstrikebackend.game.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import org.csu.pixelstrikebackend.game.model.ServerProjectile;
+import org.csu.pixelstrikebackend.config.GameConfig;
+import org.csu.pixelstrikebackend.game.engine.GameWorld;
+import org.csu.pixelstrikebackend.game.engine.PositionFrame;
+import org.csu.pixelstrikebackend.game.engine.SnapshotRing;
+import org.csu.pixelstrikebackend.game.geom.SpreadPattern;
 import org.csu.pixelstrikebackend.game.model.SupplyDrop;
-import org.csu.pixelstrikebackend.lobby.entity.UserProfile;
+import org.csu.pixelstrikebackend.game.rules.GameEvent;
 import org.csu.pixelstrikebackend.lobby.enums.UserStatus;
-import org.csu.pixelstrikebackend.lobby.mapper.UserProfileMapper;
 import org.csu.pixelstrikebackend.lobby.service.OnlineUserService;
 import org.csu.pixelstrikebackend.lobby.service.PlayerSessionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.util.List;
@@ -24,13 +29,14 @@ public class GameRoomService {
 
     // --- 注入新的、解耦的Service ---
     @Autowired private GameSessionManager sessionManager;
-    @Autowired private PlayerStateManager playerStateManager;
     @Autowired private ClientStateService clientStateService;
-    @Autowired private ProjectileManager projectileManager;
     @Autowired private OnlineUserService onlineUserService;
     @Autowired private PlayerSessionService playerSessionService;
-    @Autowired private SupplyDropManager supplyDropManager;
-    @Autowired private UserProfileMapper userProfileMapper;
+    @Autowired private GameManager gameManager;
+    @Autowired private GameTimerService gameTimerService;
+    @Autowired private GameRuleEngine gameRuleEngine;
+    @Autowired private GameConfig gameConfig;
+    @Autowired private HitValidationService hitValidationService;
 
     // 命中判定常量 (可以考虑移到GameConfig)
     private static final double KB_X = 220.0;
@@ -38,10 +44,8 @@ public class GameRoomService {
     private static final double BULLET_SPEED = 1500.0;
 
     public void prepareGame(Long gameId, List<Integer> playerIds) {
+        // 玩家状态随 ActiveGame 的 GameWorld 一起创建，这里不需要逐个初始化
         System.out.println("Preparing new game " + gameId + " with players: " + playerIds);
-        for (Integer userId : playerIds) {
-            playerStateManager.initializePlayer(userId);
-        }
     }
 
     private Long getGameId(WebSocketSession session) {
@@ -57,15 +61,27 @@ public class GameRoomService {
         }
     }
 
-    public void removeSession(WebSocketSession s) {
+    public void removeSession(WebSocketSession s, CloseStatus status) {
         Long gameId = getGameId(s);
         Integer userId = (Integer) s.getAttributes().get("userId");
-        if (userId != null && gameId != null) {
+        GameManager.ActiveGame activeGame = gameId == null ? null : gameManager.getActiveGames().get(gameId);
+        int slot = activeGame == null || userId == null ? GameWorld.NO_SLOT : activeGame.world.slotOf(userId);
+        if (slot != GameWorld.NO_SLOT && !isIntentionalClose(status)) {
+            // 异常断线（网络中断、刷新页面等）先保留席位，宽限期内重连可以接着玩；到期仍未重连时按离开处理（见 GameLoopService）
+            long deadline = System.currentTimeMillis() + gameConfig.getRules().getReconnectGraceMs();
+            gameManager.submit(gameId, () -> gameTimerService.scheduleReconnectGrace(activeGame, slot, deadline));
+            System.out.println("User " + userId + " disconnected from game " + gameId + ", holding the seat for reconnect.");
+        } else if (userId != null && gameId != null) {
             if(playerSessionService.isPlayerInGame(userId)){
                 playerSessionService.removePlayerFromGame(userId);
                 onlineUserService.updateUserStatus(userId, UserStatus.ONLINE);
                 System.out.println("Cleaned up session for unexpectedly disconnected user: " + userId);
             }
+            // 交给规则判断是否因此结束对局（例如所有玩家都已离开）
+            GameManager.ActiveGame game = gameManager.getActiveGames().get(gameId);
+            if (game != null) {
+                gameManager.submit(gameId, () -> gameRuleEngine.publish(game, GameEvent.playerLeft(userId)));
+            }
         }
         if (gameId != null) {
             // ★ 修改点: 调用 removeSession 时传入 gameId ★
@@ -74,12 +90,24 @@ public class GameRoomService {
         clientStateService.unregisterSession(s);
     }
 
+    // 客户端主动关闭（返回大厅）时不带状态码或带 1000，其余关闭都视为可能重连的断线
+    private static boolean isIntentionalClose(CloseStatus status) {
+        return status == null || CloseStatus.NORMAL.equalsCode(status) || CloseStatus.NO_STATUS_CODE.equalsCode(status);
+    }
+
     public void handleJoin(WebSocketSession session) {
         Integer userId = (Integer) session.getAttributes().get("userId");
         Long gameId = getGameId(session);
         if (userId == null) return;
 
-        playerStateManager.initializePlayer(userId);
+        // 按玩家当前登记的对局判断：首次进入和断线重连都保留已有的血量与战绩，不再重置
+        GameManager.ActiveGame game = gameId == null ? null : gameManager.getActiveGames().get(gameId);
+        boolean member = game != null && gameId.equals(playerSessionService.getActiveGameId(userId));
+        int slot = member ? game.world.slotOf(userId) : GameWorld.NO_SLOT;
+        if (slot != GameWorld.NO_SLOT) {
+            // 重连的客户端序列号从头开始，必须在下一条状态包之前清零
+            game.world.resetStateSeq(slot);
+        }
 
         ObjectNode welcome = mapper.createObjectNode();
         welcome.put("type", "welcome");
@@ -92,6 +120,62 @@ public class GameRoomService {
         joined.put("id", userId);
         joined.put("name", "Player " + userId);
         sessionManager.broadcastToOthers(gameId, session, joined.toString());
+
+        if (slot != GameWorld.NO_SLOT) {
+            // 断线重连：撤销重连截止时间，否则到期后会把已经回来的玩家按离开处理
+            gameManager.submit(gameId, () -> {
+                gameTimerService.cancelReconnectGrace(game, slot);
+                sendGameSnapshot(game, session);
+            });
+        }
+    }
+
+    /**
+     * 在房间 tick 线程上给刚连入的玩家推送一次完整状态：所有玩家的最后位置、血量、武器和战绩，
+     * 场上的补给品和剩余时间。客户端收到后即可开始游戏，不必等其他玩家的下一条状态包。
+     */
+    private void sendGameSnapshot(GameManager.ActiveGame game, WebSocketSession session) {
+        if (!session.isOpen()) return;
+        GameWorld world = game.world;
+        long now = System.currentTimeMillis();
+        long remaining = game.startTime + gameConfig.getRules().getMaxDurationMs() - now;
+
+        ObjectNode msg = mapper.createObjectNode();
+        msg.put("type", "game_snapshot");
+        msg.put("serverTime", now);
+        msg.put("gameTimeRemainingSeconds", (int) Math.max(0, remaining / 1000));
+
+        SnapshotRing.Pose pose = new SnapshotRing.Pose();
+        ArrayNode players = msg.putArray("players");
+        for (int slot = 0; slot < world.size(); slot++) {
+            int playerId = world.userIdAt(slot);
+            ObjectNode p = players.addObject();
+            p.put("id", playerId);
+            p.put("nickname", game.nicknames.getOrDefault(playerId, "玩家 " + playerId));
+            p.put("hp", world.getHp(slot));
+            p.put("dead", world.isDead(slot));
+            p.put("weaponType", world.getWeapon(slot));
+            p.put("kills", world.getKills(slot));
+            p.put("deaths", world.getDeaths(slot));
+            if (world.latestPose(slot, pose)) {
+                p.put("x", pose.x);
+                p.put("y", pose.y);
+                p.put("vx", pose.vx);
+                p.put("vy", pose.vy);
+                p.put("facing", pose.facing);
+                p.put("onGround", pose.onGround);
+            }
+        }
+
+        ArrayNode drops = msg.putArray("drops");
+        for (SupplyDrop drop : game.supplies.active()) {
+            ObjectNode d = drops.addObject();
+            d.put("dropId", drop.getId());
+            d.put("dropType", drop.getType());
+            d.put("x", drop.getX());
+            d.put("y", drop.getY());
+        }
+        sessionManager.sendTo(session, msg.toString());
     }
 
     public void handleState(WebSocketSession session, JsonNode root) {
@@ -107,8 +191,15 @@ public class GameRoomService {
         long cliTS = root.path("ts").asLong(0);
         clientStateService.updateClock(session, cliTS, now);
 
+        GameManager.ActiveGame game = gameId == null ? null : gameManager.getActiveGames().get(gameId);
+        if (game == null) return;
+        GameWorld world = game.world;
+        int slot = world.slotOf(userId);
+        if (slot == GameWorld.NO_SLOT) return;
+
+        // 序列号属于连接级的入站过滤，和限流一样在 WebSocket 线程上完成
         long seq = root.path("seq").asLong(0);
-        if (!playerStateManager.acceptStateSeq(userId, seq)) {
+        if (!world.acceptStateSeq(slot, seq)) {
             return;
         }
 
@@ -116,8 +207,11 @@ public class GameRoomService {
         double vx = root.path("vx").asDouble(), vy = root.path("vy").asDouble();
         boolean facing = root.path("facing").asBoolean(), onGround = root.path("onGround").asBoolean();
 
-        playerStateManager.recordStateSnapshot(userId, now, cliTS, x, y, vx, vy, facing, onGround);
+        if (!gameManager.submit(gameId, () -> world.recordSnapshot(slot, now, cliTS, x, y, vx, vy, facing, onGround))) {
+            return;
+        }
 
+        // 状态转发不涉及权威状态，直接在当前线程广播，避免多等一个 tick
         ObjectNode stateToBroadcast = (ObjectNode) root.deepCopy();
         stateToBroadcast.put("id", userId);
         stateToBroadcast.put("serverTime", now);
@@ -130,19 +224,25 @@ public class GameRoomService {
         if (shooterId == null) return;
 
         double ox = root.path("ox").asDouble(), oy = root.path("oy").asDouble();
-        double dx = root.path("dx").asDouble(), dy = root.path("dy").asDouble();
-        double range = root.path("range").asDouble(0);
-
+        if (!Double.isFinite(ox) || !Double.isFinite(oy)) return;
+        // 方向和 validateShot 一样先截断再归一化，子弹速度只由 BULLET_SPEED 决定
+        double rawDx = HitValidationService.clampDir(root.path("dx").asDouble());
+        double rawDy = HitValidationService.clampDir(root.path("dy").asDouble());
+        double len = Math.hypot(rawDx, rawDy);
+        if (len < 1e-6) return;
+        double dx = rawDx / len, dy = rawDy / len;
         int damage = root.path("damage").asInt(10);
         String weaponType = root.path("weaponType").asText("Pistol"); // 提供一个默认值
-        ServerProjectile serverProjectile = new ServerProjectile(
-                shooterId, ox, oy, dx, dy, BULLET_SPEED, range,
-                damage, weaponType, gameId
-        );
-        projectileManager.addProjectile(serverProjectile);
+        // 射程由客户端上报，按武器上限截断，不能凭一条消息打穿整张地图
+        double range = hitValidationService.clampRange(weaponType, root.path("range").asDouble(0));
+        if (range <= 0) return;
+        GameManager.ActiveGame game = gameId == null ? null : gameManager.getActiveGames().get(gameId);
+        if (game == null) return;
+        int slot = game.world.slotOf(shooterId);
+        if (slot == GameWorld.NO_SLOT) return;
 
         // 广播 shot 消息，让所有客户端生成纯视觉的子弹特效
-        // 如果想完全依赖服务器，也可以注释掉下面这段广播
+        // 先广播再入队，保证客户端先收到 shot 再收到这颗子弹造成的 damage
         long now = System.currentTimeMillis();
         ObjectNode shot = mapper.createObjectNode();
         shot.put("type", "shot");
@@ -154,23 +254,138 @@ public class GameRoomService {
         shot.put("weaponType", weaponType);
         sessionManager.broadcast(gameId, shot.toString());
 
+        GameConfig.Weapons weapons = gameConfig.getWeapons();
+        if (weapons.getHitscan().contains(weaponType)) {
+            // 即时命中武器不进入子弹池：回退到射手看到的画面时间，只做一次射线检测
+            long viewTime = hitValidationService.rewindTime(session, root.path("ts").asLong(0), now);
+            gameManager.submit(gameId, () -> resolveHitscan(game, slot, viewTime, ox, oy, dx, dy, range, damage));
+            return;
+        }
+        // 射手在飞的子弹达到上限时 spawn 直接丢弃这颗子弹
+        byte weapon = GameWorld.weaponCode(weaponType);
+        gameManager.submit(gameId, () -> game.projectiles.spawn(slot, ox, oy,
+                dx * BULLET_SPEED, dy * BULLET_SPEED, range, damage, weapon));
+    }
+
+    /**
+     * 在房间 tick 线程上结算即时命中射击，伤害与子弹命中一样先累加，tick 末尾统一结算。
+     */
+    private void resolveHitscan(GameManager.ActiveGame game, int shooterSlot, long viewTime,
+                                double ox, double oy, double dx, double dy, double range, int damage) {
+        if (game.endReason != null) return;
+        hitValidationService.validateShot(game, shooterSlot, viewTime, ox, oy, dx, dy, range)
+                .ifPresent(hit -> game.damage.add(game.world, shooterSlot, game.world.slotOf(hit.victimId),
+                        damage, dx >= 0 ? KB_X : -KB_X, KB_Y));
+    }
+
+    /**
+     * 散射武器的一次齐射：客户端只发一条 volley（原点、中心方向、弹丸数、扩散角、seed），
+     * 服务器按 SpreadPattern 展开成弹丸一起结算，房间内也只广播一条 volley，客户端用同一个 seed 还原弹道。
+     */
+    public void handleVolley(WebSocketSession session, JsonNode root) {
+        Integer shooterId = (Integer) session.getAttributes().get("userId");
+        Long gameId = getGameId(session);
+        if (shooterId == null) return;
+
+        GameConfig.Weapons weapons = gameConfig.getWeapons();
+        double ox = root.path("ox").asDouble(), oy = root.path("oy").asDouble();
+        if (!Double.isFinite(ox) || !Double.isFinite(oy)) return;
+        double dx = HitValidationService.clampDir(root.path("dx").asDouble());
+        double dy = HitValidationService.clampDir(root.path("dy").asDouble());
+        if (Math.hypot(dx, dy) < 1e-6) return;
+        int pellets = Math.max(1, Math.min(root.path("pellets").asInt(1), weapons.getMaxPellets()));
+        double rawSpread = root.path("spread").asDouble(0);
+        double spread = Double.isFinite(rawSpread) ? Math.max(0.0, Math.min(rawSpread, weapons.getMaxSpreadRad())) : 0.0;
+        int seed = root.path("seed").asInt(0);
+        int damage = root.path("damage").asInt(10); // 每颗弹丸的伤害
+        String weaponType = root.path("weaponType").asText("Shotgun");
+        // 射程和 shot 一样按武器上限截断，每颗弹丸都要沿这个长度检测
+        double range = hitValidationService.clampRange(weaponType, root.path("range").asDouble(0));
+        if (range <= 0) return;
+        GameManager.ActiveGame game = gameId == null ? null : gameManager.getActiveGames().get(gameId);
+        if (game == null) return;
+        int slot = game.world.slotOf(shooterId);
+        if (slot == GameWorld.NO_SLOT) return;
+
+        long now = System.currentTimeMillis();
+        ObjectNode volley = mapper.createObjectNode();
+        volley.put("type", "volley");
+        volley.put("attacker", shooterId);
+        volley.put("ox", ox); volley.put("oy", oy);
+        volley.put("dx", dx); volley.put("dy", dy);
+        volley.put("pellets", pellets);
+        volley.put("spread", spread);
+        volley.put("seed", seed);
+        volley.put("range", range);
+        volley.put("srvTS", now);
+        volley.put("weaponType", weaponType);
+        sessionManager.broadcast(gameId, volley.toString());
+
+        double[] dirX = new double[pellets], dirY = new double[pellets];
+        SpreadPattern.expand(dx, dy, spread, seed, pellets, dirX, dirY);
+        if (weapons.getHitscan().contains(weaponType)) {
+            long viewTime = hitValidationService.rewindTime(session, root.path("ts").asLong(0), now);
+            gameManager.submit(gameId, () -> resolveHitscanVolley(game, slot, viewTime, ox, oy, dirX, dirY, range, damage));
+            return;
+        }
+        // 所有弹丸在同一条命令里生成，同一步推进、一起检测
+        byte weapon = GameWorld.weaponCode(weaponType);
+        gameManager.submit(gameId, () -> {
+            for (int k = 0; k < dirX.length; k++) {
+                game.projectiles.spawn(slot, ox, oy, dirX[k] * BULLET_SPEED, dirY[k] * BULLET_SPEED, range, damage, weapon);
+            }
+        });
+    }
+
+    private void resolveHitscanVolley(GameManager.ActiveGame game, int shooterSlot, long viewTime,
+                                      double ox, double oy, double[] dirX, double[] dirY, double range, int damage) {
+        if (game.endReason != null) return;
+        int[] victims = new int[dirX.length];
+        hitValidationService.validateVolley(game, shooterSlot, viewTime, ox, oy, dirX, dirY, dirX.length, range, victims);
+        for (int k = 0; k < victims.length; k++) {
+            if (victims[k] != GameWorld.NO_SLOT) {
+                game.damage.add(game.world, shooterSlot, victims[k], damage, dirX[k] >= 0 ? KB_X : -KB_X, KB_Y);
+            }
+        }
     }
 
     public void handleSupplyPickup(WebSocketSession session, JsonNode root) {
         Integer userId = (Integer) session.getAttributes().get("userId");
         Long gameId = getGameId(session);
-        if (userId == null) return;
+        GameManager.ActiveGame game = gameId == null ? null : gameManager.getActiveGames().get(gameId);
+        if (userId == null || game == null) return;
         long dropId = root.path("dropId").asLong();
-        SupplyDrop drop = supplyDropManager.removeDrop(dropId);
+        gameManager.submit(gameId, () -> applySupplyPickup(game, userId, dropId));
+    }
+
+    /**
+     * 在房间 tick 线程上结算拾取，谁的命令先被执行谁拿到物资。
+     * 按玩家最后一次上报的位置判定距离，离补给点太远的认领直接忽略；昵称取开局时加载的缓存，不查数据库。
+     */
+    private void applySupplyPickup(GameManager.ActiveGame game, Integer userId, long dropId) {
+        Long gameId = game.gameId;
+        GameWorld world = game.world;
+        int slot = world.slotOf(userId);
+        if (slot == GameWorld.NO_SLOT) return;
+        SnapshotRing.Pose pose = new SnapshotRing.Pose();
+        if (!world.latestPose(slot, pose)) return;
+        double minX = pose.x + PositionFrame.HB_OFF_X;
+        double minY = pose.y + PositionFrame.HB_OFF_Y;
+        SupplyDrop drop = game.supplies.claim(dropId, minX, minY, minX + PositionFrame.HB_W, minY + PositionFrame.HB_H);
         if (drop != null) {
             String dropType = drop.getType();
-            UserProfile pickerProfile = userProfileMapper.selectById(userId);
-            String pickerNickname = (pickerProfile != null) ? pickerProfile.getNickname() : "一位玩家";
 
             switch (dropType) {
                 case "HEALTH_PACK":
-                    playerStateManager.applyHeal(userId, 50);
-                    int newHp = playerStateManager.getHp(userId);
+                    if (!world.isDead(slot)) {
+                        int healedHp = world.heal(slot, 50);
+                        ObjectNode healMsg = mapper.createObjectNode();
+                        healMsg.put("type", "player_healed");
+                        healMsg.put("userId", userId);
+                        healMsg.put("newHp", healedHp);
+                        sessionManager.broadcast(gameId, healMsg.toString());
+                    }
+                    int newHp = world.getHp(slot);
                     ObjectNode healthUpdateMsg = mapper.createObjectNode();
                     healthUpdateMsg.put("type", "health_update");
                     healthUpdateMsg.put("userId", userId);
@@ -179,21 +394,8 @@ public class GameRoomService {
                     break;
 
                 case "BOMB":
-                    // 立即对拾取者造成15点伤害
-                    DamageResult res = playerStateManager.applyDamage(userId, userId, 15);
-
-                    // 广播伤害消息，让客户端更新血量
-                    ObjectNode dmgMsg = mapper.createObjectNode();
-                    dmgMsg.put("type", "damage");
-                    dmgMsg.put("attacker", userId);
-                    dmgMsg.put("victim", userId);
-                    dmgMsg.put("damage", 15);
-                    dmgMsg.put("hp", res.hp);
-                    dmgMsg.put("dead", res.dead);
-                    dmgMsg.put("kx", 0);
-                    dmgMsg.put("ky", 0);
-                    dmgMsg.put("srvTS", System.currentTimeMillis());
-                    sessionManager.broadcast(gameId, dmgMsg.toString());
+                    // 对拾取者造成15点环境伤害，和本 tick 其他伤害一起在 tick 末尾结算并广播
+                    game.damage.add(world, GameWorld.NO_SLOT, slot, 15, 0, 0);
 
                     ObjectNode bombMsg = mapper.createObjectNode();
                     bombMsg.put("type", "player_bombed");
@@ -201,8 +403,11 @@ public class GameRoomService {
                     sessionManager.broadcast(gameId, bombMsg.toString());
                     break;
                 case "POISON":
-                    // 让玩家中毒，持续10秒
-                    playerStateManager.applyPoison(userId, 10000);
+                    // 让玩家中毒，持续10秒；首次中毒才登记每秒结算，重复中毒只延长结束时间
+                    if (world.poison(slot, System.currentTimeMillis() + 10000)) {
+                        gameTimerService.schedulePoisonTick(game, slot,
+                                System.currentTimeMillis() + GameTimerService.POISON_INTERVAL_MS);
+                    }
                     // 广播消息，让客户端播放中毒特效
                     ObjectNode poisonMsg = mapper.createObjectNode();
                     poisonMsg.put("type", "player_poisoned");
@@ -212,7 +417,7 @@ public class GameRoomService {
                     break;
 
                 default: // 默认为武器
-                    playerStateManager.setWeapon(userId, dropType);
+                    world.setWeapon(slot, dropType);
                     ObjectNode weaponEquipMsg = mapper.createObjectNode();
                     weaponEquipMsg.put("type", "weapon_equip");
                     weaponEquipMsg.put("userId", userId);
@@ -244,12 +449,14 @@ public class GameRoomService {
 //                sessionManager.broadcast(weaponEquipMsg.toString());
 //            }
 
-            // 广播一个全局的拾取通知
-            ObjectNode pickupNotification = mapper.createObjectNode();
-            pickupNotification.put("type", "pickup_notification");
-            pickupNotification.put("pickerNickname", pickerNickname);
-            pickupNotification.put("itemType", dropType);
-            sessionManager.broadcast(gameId,pickupNotification.toString());
+            // 广播一个全局的拾取通知（房间降频时丢弃）
+            if (!game.shedNonCritical()) {
+                ObjectNode pickupNotification = mapper.createObjectNode();
+                pickupNotification.put("type", "pickup_notification");
+                pickupNotification.put("pickerNickname", game.nicknames.getOrDefault(userId, "一位玩家"));
+                pickupNotification.put("itemType", dropType);
+                sessionManager.broadcast(gameId,pickupNotification.toString());
+            }
 
             // 统一广播移除消息
             ObjectNode removeMsg = mapper.createObjectNode();
@@ -257,7 +464,7 @@ public class GameRoomService {
             removeMsg.put("dropId", dropId);
             sessionManager.broadcast(gameId,removeMsg.toString());
         }
-        // 如果 drop 为 null，说明这个物品已经被别人抢先了，服务器不做任何事。
+        // 如果 drop 为 null，说明这个物品已经被别人抢先了或者玩家离得太远，服务器不做任何事。
     }
 
     public void handleLeave(WebSocketSession session) {
@@ -273,17 +480,6 @@ public class GameRoomService {
     }
 
     // --- 内部类需要保持public，因为其他Service会用到它们 ---
-    public static final class StateSnapshot {
-        public final long srvTS, cliTS;
-        public final double x, y, vx, vy;
-        public final boolean facing, onGround;
-        public StateSnapshot(long srvTS, long cliTS, double x, double y, double vx, double vy, boolean facing, boolean onGround) {
-            this.srvTS = srvTS; this.cliTS = cliTS; this.x = x; this.y = y; this.vx = vx; this.vy = vy; this.facing = facing; this.onGround = onGround;
-        }
-        public static StateSnapshot lerp(StateSnapshot a, StateSnapshot b, double t) {
-            return new StateSnapshot((long)(a.srvTS + (b.srvTS - a.srvTS) * t), (long)(a.cliTS + (b.cliTS - a.cliTS) * t), a.x + (b.x - a.x) * t, a.y + (b.y - a.y) * t, a.vx + (b.vx - a.vx) * t, a.vy + (b.vy - a.vy) * t, (t < 0.5 ? a.facing : b.facing), (t < 0.5 ? a.onGround : b.onGround));
-        }
-    }
     public static final class RateCounter {
         private final int maxPerSecond;
         private long windowStartMs = 0;
@@ -0,0 +1,44 @@
+package org.csu.pixelstrikebackend.game.service;
+
+import org.csu.pixelstrikebackend.game.rules.GameEvent;
+import org.csu.pixelstrikebackend.game.rules.GameMode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 事件驱动的规则引擎：击杀、死亡、定时器到期、玩家离开等事件发生时交给房间的玩法规则求值，
+ * 规则判定结束时只记下结束原因，由 GameLoopService 在当前步的安全点统一结束对局。
+ */
+@Service
+public class GameRuleEngine {
+
+    @Autowired private List<GameMode> modes;
+
+    /**
+     * 按对局记录中的 gameMode 选择规则，没有匹配时使用默认规则。
+     */
+    public GameMode resolve(String gameMode) {
+        GameMode fallback = null;
+        for (GameMode mode : modes) {
+            if (mode.supports(gameMode)) return mode;
+            if (fallback == null && mode.isFallback()) fallback = mode;
+        }
+        if (fallback == null) {
+            throw new IllegalStateException("No game mode registered for " + gameMode);
+        }
+        return fallback;
+    }
+
+    /**
+     * 发布一个事件，只能在房间的 tick 线程上调用。已判定结束的房间不再求值。
+     */
+    public void publish(GameManager.ActiveGame game, GameEvent event) {
+        if (game.endReason != null || game.concluded) return;
+        String reason = game.mode.onEvent(game, event);
+        if (reason != null) {
+            game.endReason = reason;
+        }
+    }
+}
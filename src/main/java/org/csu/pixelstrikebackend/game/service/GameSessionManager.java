@@ -1,9 +1,13 @@
 // src/main/java/org/csu/pixelstrikebackend/game/service/GameSessionManager.java
 package org.csu.pixelstrikebackend.game.service;
 
+import org.csu.pixelstrikebackend.config.GameConfig;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -17,9 +21,14 @@ public class GameSessionManager {
     // --- ★ 核心修改：从单个Map变为Map的Map，按gameId隔离房间 ---
     private final Map<Long, Map<String, WebSocketSession>> gameRooms = new ConcurrentHashMap<>();
 
+    @Autowired private GameConfig gameConfig;
+
     public void addSession(Long gameId, WebSocketSession session) {
+        // 用并发装饰器包装：发送不再需要对 session 加锁，慢连接的消息先进缓冲，积压超限时断开该连接而不是阻塞 tick 线程
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(session,
+                gameConfig.getEngine().getSendTimeLimitMs(), gameConfig.getEngine().getSendBufferLimitBytes());
         // 如果该 gameId 的房间不存在，则创建一个新的
-        gameRooms.computeIfAbsent(gameId, k -> new ConcurrentHashMap<>()).put(session.getId(), session);
+        gameRooms.computeIfAbsent(gameId, k -> new ConcurrentHashMap<>()).put(session.getId(), decorated);
     }
 
     public void removeSession(Long gameId, WebSocketSession session) {
@@ -33,13 +42,27 @@ public class GameSessionManager {
         }
     }
 
+    /**
+     * 该玩家在房间中是否有打开的连接。
+     */
+    public boolean isConnected(Long gameId, Integer userId) {
+        Map<String, WebSocketSession> room = gameRooms.get(gameId);
+        if (room == null) return false;
+        for (WebSocketSession s : room.values()) {
+            if (s.isOpen() && userId.equals(s.getAttributes().get("userId"))) return true;
+        }
+        return false;
+    }
+
     public void broadcast(Long gameId, String json) {
         Map<String, WebSocketSession> room = gameRooms.get(gameId);
         if (room == null) return; // 如果房间不存在，不执行任何操作
 
         TextMessage message = new TextMessage(json);
         List<WebSocketSession> currentSessions = new ArrayList<>(room.values());
-        System.out.println("[BROADCAST][GameID: " + gameId + "] -> " + currentSessions.size() + " sessions : " + json);
+        if (gameId >= 0) { // 启动预热房间（负数 ID）不打印
+            System.out.println("[BROADCAST][GameID: " + gameId + "] -> " + currentSessions.size() + " sessions : " + json);
+        }
         for (WebSocketSession session : currentSessions) {
             sendTo(session, message);
         }
@@ -59,17 +82,39 @@ public class GameSessionManager {
     }
 
     public void sendTo(WebSocketSession session, String json) {
-        sendTo(session, new TextMessage(json));
+        sendTo(decorated(session), new TextMessage(json));
+    }
+
+    /**
+     * 所有连接待发送缓冲的总字节数，用于准入判断。
+     */
+    public long getOutboundBufferedBytes() {
+        long total = 0;
+        for (Map<String, WebSocketSession> room : gameRooms.values()) {
+            for (WebSocketSession session : room.values()) {
+                if (session instanceof ConcurrentWebSocketSessionDecorator d) {
+                    total += d.getBufferSize();
+                }
+            }
+        }
+        return total;
+    }
+
+    // 处理器传入的是原始 session，发送时换成房间中登记的装饰器，避免与广播并发写同一连接
+    private WebSocketSession decorated(WebSocketSession session) {
+        if (session == null) return null;
+        Long gameId = (Long) session.getAttributes().get("gameId");
+        Map<String, WebSocketSession> room = gameId == null ? null : gameRooms.get(gameId);
+        WebSocketSession d = room == null ? null : room.get(session.getId());
+        return d != null ? d : session;
     }
 
     private void sendTo(WebSocketSession session, TextMessage message) {
         try {
             if (session != null && session.isOpen()) {
-                synchronized (session) {
-                    session.sendMessage(message);
-                }
+                session.sendMessage(message);
             }
-        } catch (IOException | IllegalStateException e) {
+        } catch (IOException | IllegalStateException | SessionLimitExceededException e) {
             System.err.println("Failed to send message to session " + session.getId() + ": " + e.getMessage());
             Long gameId = (Long) session.getAttributes().get("gameId");
             if (gameId != null) {
@@ -0,0 +1,173 @@
+package org.csu.pixelstrikebackend.game.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.csu.pixelstrikebackend.config.GameConfig;
+import org.csu.pixelstrikebackend.game.engine.RoomStepper;
+import org.csu.pixelstrikebackend.game.engine.TickClock;
+import org.csu.pixelstrikebackend.game.engine.TickRateGovernor;
+import org.csu.pixelstrikebackend.game.engine.TickWorker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 房间亲和的 Tick 调度器：按 CPU 核数创建 TickWorker，每个 ActiveGame 固定在其中一个线程上推进。
+ * 对局开始时分配到负载最低的线程，对局结束时尝试把最重线程上的一个房间迁移到最轻线程。
+ */
+@Service
+public class GameTickScheduler {
+
+    @Autowired private GameConfig gameConfig;
+
+    private TickWorker[] workers;
+    private RoomStepper stepper;
+    // 以下两个 Map 只在 synchronized 方法中访问
+    private final Map<Long, TickWorker> workerByGame = new HashMap<>();
+    private final Map<Long, GameManager.ActiveGame> gamesById = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        int size = gameConfig.getEngine().getTickWorkers();
+        if (size <= 0) {
+            size = Runtime.getRuntime().availableProcessors();
+        }
+        workers = new TickWorker[size];
+        for (int i = 0; i < size; i++) {
+            workers[i] = new TickWorker(i);
+        }
+        System.out.println("GameTickScheduler initialized with " + size + " tick workers.");
+    }
+
+    /**
+     * 由 GameLoopService 在启动时注册每个房间的单步逻辑。
+     */
+    public void start(RoomStepper stepper) {
+        this.stepper = stepper;
+        GameConfig.Engine engine = gameConfig.getEngine();
+        List<Long> degraded = engine.getDegradedTickRatesMs();
+        long[] tiers = new long[degraded.size() + 1];
+        tiers[0] = engine.getTickRateMs();
+        for (int i = 0; i < degraded.size(); i++) {
+            tiers[i + 1] = degraded.get(i);
+        }
+        for (TickWorker worker : workers) {
+            // 每个线程独立统计、独立调整自己的房间
+            worker.start(stepper, new TickRateGovernor(tiers, engine.getRateWindowMs(),
+                    engine.getOverloadRatio(), engine.getRecoverRatio()));
+        }
+    }
+
+    /**
+     * 单个房间的单步逻辑，供启动预热在当前线程上直接推进未挂到工作线程的预热房间。
+     */
+    public RoomStepper getStepper() {
+        return stepper;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (TickWorker worker : workers) {
+            worker.shutdown();
+        }
+    }
+
+    public synchronized void assign(GameManager.ActiveGame game) {
+        if (workerByGame.containsKey(game.gameId)) return;
+        TickWorker target = lightestWorker();
+        workerByGame.put(game.gameId, target);
+        gamesById.put(game.gameId, game);
+        target.attach(game);
+        System.out.println("Game " + game.gameId + " assigned to tick worker " + target.getIndex());
+    }
+
+    public synchronized void release(Long gameId) {
+        TickWorker worker = workerByGame.remove(gameId);
+        GameManager.ActiveGame game = gamesById.remove(gameId);
+        if (worker == null || game == null) return;
+        worker.detach(game);
+        rebalance();
+    }
+
+    /**
+     * 唤醒休眠房间所在的工作线程。
+     */
+    public synchronized void wake(Long gameId) {
+        TickWorker worker = workerByGame.get(gameId);
+        if (worker != null) {
+            worker.wake();
+        }
+    }
+
+    /**
+     * 下一局会被分配到的线程编号，供准入判断按该线程的负载估算。
+     */
+    public synchronized int peekTargetWorker() {
+        return lightestWorker().getIndex();
+    }
+
+    public List<TickWorker.Load> getWorkerLoads() {
+        List<TickWorker.Load> loads = new ArrayList<>(workers.length);
+        for (TickWorker worker : workers) {
+            loads.add(worker.snapshotLoad());
+        }
+        return loads;
+    }
+
+    public synchronized List<TickClock.Stats> getRoomStats() {
+        List<TickClock.Stats> stats = new ArrayList<>(gamesById.size());
+        for (GameManager.ActiveGame game : gamesById.values()) {
+            stats.add(game.clock.snapshotStats(game.gameId, workerByGame.get(game.gameId).getIndex(), game.hibernating));
+        }
+        return stats;
+    }
+
+    /**
+     * 把最重线程上的一个房间迁到最轻线程，使两者的玩家数差距缩小。
+     * 迁移时先在旧线程上摘下，再投递到新线程，不会出现两个线程同时推进同一房间。
+     */
+    private void rebalance() {
+        TickWorker heaviest = workers[0], lightest = workers[0];
+        for (TickWorker w : workers) {
+            if (load(w) > load(heaviest)) heaviest = w;
+            if (load(w) < load(lightest)) lightest = w;
+        }
+        int diff = heaviest.getPlayerCount() - lightest.getPlayerCount();
+        if (heaviest == lightest || diff <= 1) return;
+
+        // 选择玩家数最接近 diff/2 且严格小于 diff 的房间，迁移后差距一定缩小
+        GameManager.ActiveGame candidate = null;
+        for (Map.Entry<Long, TickWorker> e : workerByGame.entrySet()) {
+            if (e.getValue() != heaviest) continue;
+            GameManager.ActiveGame g = gamesById.get(e.getKey());
+            int p = g.playerIds.size();
+            if (p <= 0 || p >= diff) continue;
+            if (candidate == null || Math.abs(diff - 2 * p) < Math.abs(diff - 2 * candidate.playerIds.size())) {
+                candidate = g;
+            }
+        }
+        if (candidate == null) return;
+
+        TickWorker target = lightest;
+        workerByGame.put(candidate.gameId, target);
+        heaviest.migrateTo(candidate, target);
+        System.out.println("Rebalanced game " + candidate.gameId + " from tick worker " + heaviest.getIndex() + " to " + target.getIndex());
+    }
+
+    private TickWorker lightestWorker() {
+        TickWorker best = workers[0];
+        for (TickWorker w : workers) {
+            if (load(w) < load(best)) best = w;
+        }
+        return best;
+    }
+
+    // 以玩家数为主、房间数为辅衡量负载
+    private static long load(TickWorker w) {
+        return ((long) w.getPlayerCount() << 16) + w.getRoomCount();
+    }
+}
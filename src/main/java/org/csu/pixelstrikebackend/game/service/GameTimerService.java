@@ -0,0 +1,92 @@
+package org.csu.pixelstrikebackend.game.service;
+
+import org.csu.pixelstrikebackend.config.GameConfig;
+import org.csu.pixelstrikebackend.game.engine.RoomTimer;
+import org.csu.pixelstrikebackend.game.engine.TimingWheel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * 所有对局内定时事件（复活、中毒结算、对局超时、补给刷新）的统一入口。
+ * 定时器存放在各房间自己的 TimingWheel 中，随房间一起迁移、一起销毁；
+ * 到期事件由 GameLoopService 在房间的 tick 线程上取出并分发。
+ */
+@Service
+public class GameTimerService {
+
+    public static final long POISON_INTERVAL_MS = 1000;
+    private static final int WHEEL_SIZE = 512;
+
+    @Autowired private GameConfig gameConfig;
+
+    public TimingWheel createWheel(long originMs) {
+        return new TimingWheel(gameConfig.getEngine().getTickRateMs(), WHEEL_SIZE, originMs);
+    }
+
+    /**
+     * 对局开始时调用：登记对局超时和第一次补给刷新。
+     */
+    public void onGameStarted(GameManager.ActiveGame game) {
+        game.timers.schedule(game.startTime + gameConfig.getRules().getMaxDurationMs(), RoomTimer.MATCH_END, -1);
+        game.timers.schedule(game.startTime + gameConfig.getSupply().getSpawnIntervalMs(), RoomTimer.SUPPLY_SPAWN, -1);
+    }
+
+    public void scheduleRespawn(GameManager.ActiveGame game, int slot, long diedAtMs) {
+        game.timers.schedule(diedAtMs + gameConfig.getPlayer().getRespawnTimeMs(), RoomTimer.RESPAWN, slot);
+    }
+
+    public void schedulePoisonTick(GameManager.ActiveGame game, int slot, long atMs) {
+        game.timers.schedule(atMs, RoomTimer.POISON_TICK, slot);
+    }
+
+    /**
+     * 断线玩家的重连截止时间，slot 为 -1 时到期检查全部玩家。
+     * 同一玩家再次断线时取消上一次的截止时间，只保留最新的一个。
+     */
+    public void scheduleReconnectGrace(GameManager.ActiveGame game, int slot, long atMs) {
+        TimingWheel.Timeout t = game.timers.schedule(atMs, RoomTimer.RECONNECT_GRACE, slot);
+        if (slot != -1) {
+            game.timers.cancel(game.world.swapReconnectGrace(slot, t));
+        }
+    }
+
+    /**
+     * 玩家已重连：取消其重连截止时间。
+     */
+    public void cancelReconnectGrace(GameManager.ActiveGame game, int slot) {
+        game.timers.cancel(game.world.swapReconnectGrace(slot, null));
+    }
+
+    public void scheduleSupplySpawn(GameManager.ActiveGame game, long atMs) {
+        game.timers.schedule(atMs, RoomTimer.SUPPLY_SPAWN, -1);
+    }
+
+    /**
+     * 补给品 ID 由房间内从 1 开始递增分配，可以直接放进 int 参数。
+     */
+    public void scheduleSupplyExpire(GameManager.ActiveGame game, long dropId, long atMs) {
+        game.timers.schedule(atMs, RoomTimer.SUPPLY_EXPIRE, (int) dropId);
+    }
+
+    public boolean cancel(GameManager.ActiveGame game, TimingWheel.Timeout timeout) {
+        return game.timers.cancel(timeout);
+    }
+
+    /**
+     * 把房间时间轮推进到 now，之后用 pollExpired 逐个取出到期事件。
+     */
+    public void advance(GameManager.ActiveGame game, long now) {
+        game.timers.advance(now);
+    }
+
+    public TimingWheel.Timeout pollExpired(GameManager.ActiveGame game) {
+        return game.timers.poll();
+    }
+
+    /**
+     * 房间下一个定时事件的时间，用于决定休眠房间的唤醒时间。
+     */
+    public long nextDeadline(GameManager.ActiveGame game) {
+        return game.timers.nextDeadlineMs();
+    }
+}
@@ -0,0 +1,186 @@
+package org.csu.pixelstrikebackend.game.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.csu.pixelstrikebackend.config.GameConfig;
+import org.csu.pixelstrikebackend.game.engine.GameWorld;
+import org.csu.pixelstrikebackend.game.engine.RoomStepper;
+import org.csu.pixelstrikebackend.game.engine.SupplyDirector;
+import org.csu.pixelstrikebackend.game.engine.TickClock;
+import org.csu.pixelstrikebackend.game.rules.GameEvent;
+import org.csu.pixelstrikebackend.game.rules.GameMode;
+import org.csu.pixelstrikebackend.game.websocket.GameWebSocketHandler;
+import org.csu.pixelstrikebackend.game.websocket.WarmupWebSocketSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 启动预热：在接受流量之前，用进程内的假房间和假连接把真实的热点路径跑若干步，
+ * 包括 GameWebSocketHandler 的 JSON 解码、handleState/handleShot/handleVolley、命令队列、updateProjectiles 与 HitMath、
+ * 计分板和广播的 JSON 编码，让 C2 在第一局真实对局之前完成编译。
+ * 假连接和真实连接一样经 GameRoomService.addSession 注册，限流和 ClockAlign 走的是真实的逐连接状态；
+ * 预热发送得比真实客户端快，超出限流的 state 会被丢弃，丢弃路径同样得到预热。
+ * 在 ApplicationReadyEvent 中同步执行，Spring Boot 在所有 ready 监听器返回之后才把就绪状态切到 ACCEPTING_TRAFFIC；
+ * 预热期间准入判断同时拒绝新对局。预热房间和玩家都使用负数 ID，不写数据库、不挂到 Tick 工作线程，结束后全部清理。
+ */
+@Service
+public class GameWarmupService {
+
+    // 预热房间使用的规则：永不结束，避免触发结算和战绩入库
+    private static final GameMode WARMUP_MODE = new GameMode() {
+        @Override public String getName() { return "WARMUP"; }
+        @Override public boolean supports(String gameMode) { return false; }
+        @Override public String onEvent(GameManager.ActiveGame game, GameEvent event) { return null; }
+    };
+
+    @Autowired private GameConfig gameConfig;
+    @Autowired private ApplicationContext applicationContext;
+    @Autowired private GameManager gameManager;
+    @Autowired private GameWebSocketHandler gameWebSocketHandler;
+    @Autowired private GameSessionManager gameSessionManager;
+    @Autowired private GameRoomService gameRoomService;
+    @Autowired private ClientStateService clientStateService;
+    @Autowired private GameTickScheduler gameTickScheduler;
+    @Autowired private GameTimerService gameTimerService;
+    @Autowired private GameCapacityService gameCapacityService;
+    @Autowired private MapDataService mapDataService;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        GameConfig.Warmup cfg = gameConfig.getWarmup();
+        if (!cfg.isEnabled()) return;
+
+        AvailabilityChangeEvent.publish(applicationContext, ReadinessState.REFUSING_TRAFFIC);
+        gameCapacityService.pauseAdmission("服务器预热中");
+        long start = System.nanoTime();
+        List<GameManager.ActiveGame> rooms = new ArrayList<>();
+        Map<Long, List<WarmupWebSocketSession>> sessionsByRoom = new HashMap<>();
+        try {
+            for (int r = 0; r < cfg.getRooms(); r++) {
+                GameManager.ActiveGame game = createRoom(-(r + 1L), cfg.getPlayersPerRoom());
+                rooms.add(game);
+                sessionsByRoom.put(game.gameId, connect(game));
+            }
+            run(rooms, sessionsByRoom, cfg);
+        } catch (Exception e) {
+            // 预热失败不影响启动，只是首局可能仍然跑在冷代码上
+            System.err.println("Game warm-up failed: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            for (GameManager.ActiveGame game : rooms) {
+                cleanup(game, sessionsByRoom.getOrDefault(game.gameId, List.of()));
+            }
+            gameCapacityService.resumeAdmission();
+        }
+        System.out.println("Game warm-up finished: " + rooms.size() + " rooms x " + cfg.getIterations()
+                + " steps in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private GameManager.ActiveGame createRoom(Long gameId, int players) {
+        List<Integer> playerIds = new ArrayList<>();
+        Map<Integer, Integer> selections = new HashMap<>();
+        for (int p = 0; p < players; p++) {
+            int userId = (int) (gameId * 1000) - p;
+            playerIds.add(userId);
+            selections.put(userId, 1);
+        }
+        GameConfig.Engine engine = gameConfig.getEngine();
+        GameManager.ActiveGame game = new GameManager.ActiveGame(gameId, playerIds, selections,
+                new TickClock(engine.getTickRateMs(), engine.getMaxCatchUpSteps()),
+                gameTimerService.createWheel(System.currentTimeMillis()),
+                new GameWorld(playerIds, gameConfig.getPlayer().getMaxHealth()), mapDataService.collisionFor(null),
+                new SupplyDirector(mapDataService.supplySpawnsFor(null), gameConfig.getSupply().getMaxLive(),
+                        gameConfig.getSupply().getPickupRadius()),
+                gameConfig.getPlayer().getMaxProjectiles(), null, WARMUP_MODE);
+        for (Integer userId : playerIds) {
+            game.nicknames.put(userId, "warmup " + userId);
+        }
+        gameTimerService.onGameStarted(game);
+        gameManager.getActiveGames().put(gameId, game);
+        return game;
+    }
+
+    private List<WarmupWebSocketSession> connect(GameManager.ActiveGame game) {
+        List<WarmupWebSocketSession> sessions = new ArrayList<>();
+        for (Integer userId : game.playerIds) {
+            WarmupWebSocketSession session = new WarmupWebSocketSession(game.gameId, userId);
+            gameRoomService.addSession(session);
+            sessions.add(session);
+        }
+        return sessions;
+    }
+
+    /**
+     * 每一步：每个假玩家经 GameWebSocketHandler 发送一条 state，按间隔开枪，然后在当前线程推进房间一步。
+     * 玩家站成一排来回移动，子弹会真实地命中、致死并登记复活。
+     */
+    private void run(List<GameManager.ActiveGame> rooms, Map<Long, List<WarmupWebSocketSession>> sessionsByRoom,
+                     GameConfig.Warmup cfg) throws Exception {
+        RoomStepper stepper = gameTickScheduler.getStepper();
+        double groundY = gameConfig.getPhysics().getGroundY();
+        for (int i = 0; i < cfg.getIterations(); i++) {
+            for (GameManager.ActiveGame game : rooms) {
+                List<WarmupWebSocketSession> sessions = sessionsByRoom.get(game.gameId);
+                for (int p = 0; p < sessions.size(); p++) {
+                    double x = 500 + p * 300 + Math.sin(i * 0.05 + p) * 120;
+                    double y = groundY - 200;
+                    ObjectNode state = mapper.createObjectNode();
+                    state.put("type", "state");
+                    state.put("seq", i + 1);
+                    state.put("ts", System.currentTimeMillis());
+                    state.put("x", x);
+                    state.put("y", y);
+                    state.put("vx", Math.cos(i * 0.05 + p) * 120);
+                    state.put("vy", 0.0);
+                    state.put("facing", p % 2 == 0);
+                    state.put("onGround", true);
+                    gameWebSocketHandler.handleMessage(sessions.get(p), new TextMessage(state.toString()));
+
+                    if ((i + p) % cfg.getShotEvery() == 0) {
+                        // 每隔一次换成霰弹齐射，覆盖 volley 的展开路径
+                        boolean volley = (i / cfg.getShotEvery()) % 2 == 1;
+                        ObjectNode shot = mapper.createObjectNode();
+                        shot.put("type", volley ? "volley" : "shot");
+                        shot.put("ts", System.currentTimeMillis());
+                        shot.put("ox", x + 120);
+                        shot.put("oy", y + 100);
+                        shot.put("dx", p % 2 == 0 ? 1.0 : -1.0);
+                        shot.put("dy", 0.0);
+                        shot.put("range", 1200.0);
+                        shot.put("damage", 10);
+                        shot.put("weaponType", volley ? "Shotgun" : "Pistol");
+                        if (volley) {
+                            shot.put("pellets", 6);
+                            shot.put("spread", 0.2);
+                            shot.put("seed", i);
+                        }
+                        gameWebSocketHandler.handleMessage(sessions.get(p), new TextMessage(shot.toString()));
+                    }
+                }
+                stepper.step(game, game.clock.getStepSeconds());
+            }
+        }
+    }
+
+    private void cleanup(GameManager.ActiveGame game, List<WarmupWebSocketSession> sessions) {
+        game.concluded = true;
+        gameManager.getActiveGames().remove(game.gameId);
+        for (WarmupWebSocketSession session : sessions) {
+            // 不走 GameRoomService.removeSession：那里会按断线处理，给假玩家保留席位
+            gameSessionManager.removeSession(game.gameId, session);
+            clientStateService.unregisterSession(session);
+        }
+    }
+}
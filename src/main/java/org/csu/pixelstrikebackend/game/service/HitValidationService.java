@@ -1,65 +1,143 @@
 package org.csu.pixelstrikebackend.game.service;
 
+import org.csu.pixelstrikebackend.game.engine.GameWorld;
+import org.csu.pixelstrikebackend.game.engine.PositionFrame;
+import org.csu.pixelstrikebackend.game.engine.SnapshotRing;
 import org.csu.pixelstrikebackend.game.geom.HitMath;
+import org.csu.pixelstrikebackend.config.GameConfig;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.socket.WebSocketSession;
 
 import java.util.Optional;
 
 @Service
 public class HitValidationService {
 
-    @Autowired
-    private PlayerStateManager playerStateManager;
+    @Autowired private GameConfig gameConfig;
+    @Autowired private ClientStateService clientStateService;
 
-    // 命中判定常量 (可以考虑移到GameConfig)
-    private static final double HB_OFF_X = 80.0;
-    private static final double HB_OFF_Y = 20.0;
-    private static final double HB_W     = 86.0;
-    private static final double HB_H     = 160.0;
+    /**
+     * 射手开枪时看到的画面对应的服务器时间：客户端时间戳经该连接的 ClockAlign 换算成服务器时间，再减去渲染延迟。
+     * 回退窗口限制在 [now - maxRewindMs, now]，高延迟或伪造时间戳都不能让服务器回退得更久。
+     * 消息不带时间戳时按到达时间减去渲染延迟估算。
+     */
+    public long rewindTime(WebSocketSession session, long clientTs, long now) {
+        GameConfig.Weapons weapons = gameConfig.getWeapons();
+        long shotTime = clientTs > 0 ? clientStateService.toServerTime(session, clientTs) : now;
+        long viewTime = shotTime - weapons.getViewDelayMs();
+        return Math.max(now - weapons.getMaxRewindMs(), Math.min(now, viewTime));
+    }
+
+    /**
+     * 客户端上报的射程按武器的射程上限截断，NaN、无穷大和负数按 0 处理（调用方丢弃这一枪）。
+     */
+    public double clampRange(String weaponType, double range) {
+        if (!Double.isFinite(range) || range <= 0) return 0.0;
+        GameConfig.Weapons weapons = gameConfig.getWeapons();
+        return Math.min(range, weapons.getMaxRange().getOrDefault(weaponType, weapons.getDefaultMaxRange()));
+    }
 
-    public Optional<GameRoomService.HitInfo> validateShot(int shooterId, long shotSrvTS, double ox, double oy, double dx, double dy, double range) {
+    /**
+     * 把房间内其他玩家回退到 shotSrvTS 时的位置，返回射线最先命中的玩家。
+     * 已死亡或本 tick 已受致命伤害的玩家不参与判定，只在房间 tick 线程上调用。
+     */
+    public Optional<GameRoomService.HitInfo> validateShot(GameManager.ActiveGame game, int shooterSlot, long shotSrvTS, double ox, double oy, double dx, double dy, double range) {
+        GameWorld world = game.world;
         dx = clampDir(dx);
         dy = clampDir(dy);
         double len = Math.hypot(dx, dy);
-        if (len < 1e-6 || range <= 0) return Optional.empty();
+        if (len < 1e-6 || !Double.isFinite(range) || range <= 0) return Optional.empty();
         dx /= len; dy /= len;
 
         double rx = dx * range, ry = dy * range;
+        // 射线只到第一堵墙为止，墙后的玩家打不到
+        double limit = Math.min(1.0, game.terrain.raycast(ox, oy, rx, ry));
 
         double bestT = Double.POSITIVE_INFINITY;
-        int bestVictim = -1;
+        int bestSlot = GameWorld.NO_SLOT;
+        SnapshotRing.Pose s = new SnapshotRing.Pose();
         
-        // 注意：这里需要一种方式来获取所有当前在游戏中的玩家ID
-        // 暂时我们假设playerStateManager可以提供这个
-        for (Integer victimId : playerStateManager.hpByPlayer.keySet()) { // 这是一个简化的示例
-            if (victimId.equals(shooterId) || playerStateManager.isDead(victimId)) {
+        for (int slot = 0; slot < world.size(); slot++) {
+            if (slot == shooterSlot || game.damage.isDown(world, slot)) {
                 continue;
             }
 
-            Optional<GameRoomService.StateSnapshot> sOpt = playerStateManager.interpolateAt(victimId, shotSrvTS);
-            if (sOpt.isEmpty()) continue;
-            GameRoomService.StateSnapshot s = sOpt.get();
+            if (!world.interpolateAt(slot, shotSrvTS, s)) continue;
 
-            double minX = s.x + HB_OFF_X;
-            double minY = s.y + HB_OFF_Y;
-            double maxX = minX + HB_W;
-            double maxY = minY + HB_H;
+            double minX = s.x + PositionFrame.HB_OFF_X;
+            double minY = s.y + PositionFrame.HB_OFF_Y;
+            double maxX = minX + PositionFrame.HB_W;
+            double maxY = minY + PositionFrame.HB_H;
 
             double tEnter = HitMath.raySegmentVsAABB(ox, oy, rx, ry, minX, minY, maxX, maxY);
             if (tEnter < bestT) {
                 bestT = tEnter;
-                bestVictim = victimId;
+                bestSlot = slot;
             }
         }
 
-        if (bestVictim >= 0 && bestT <= 1.0) {
-            return Optional.of(new GameRoomService.HitInfo(bestVictim, bestT));
+        // 用槽位判断是否命中：预热房间的假玩家 ID 为负数
+        if (bestSlot != GameWorld.NO_SLOT && bestT <= limit) {
+            return Optional.of(new GameRoomService.HitInfo(world.userIdAt(bestSlot), bestT));
         }
         return Optional.empty();
     }
     
-    private static double clampDir(double v) {
+    /**
+     * 即时命中武器的一次齐射：所有弹丸对回退到 shotSrvTS 的玩家碰撞盒做一次 HitMath.segmentsVsBoxes，
+     * 每颗弹丸取撞墙前最近的玩家，槽位写入 victimsOut[k]，未命中为 GameWorld.NO_SLOT。
+     * (dirX[k], dirY[k]) 为单位方向，只在房间 tick 线程上调用。
+     */
+    public void validateVolley(GameManager.ActiveGame game, int shooterSlot, long shotSrvTS, double ox, double oy,
+                               double[] dirX, double[] dirY, int pellets, double range, int[] victimsOut) {
+        GameWorld world = game.world;
+        int n = world.size();
+        int[] slots = new int[n];
+        double[] minX = new double[n], minY = new double[n], maxX = new double[n], maxY = new double[n];
+        SnapshotRing.Pose s = new SnapshotRing.Pose();
+        int m = 0;
+        for (int slot = 0; slot < n; slot++) {
+            if (slot == shooterSlot || game.damage.isDown(world, slot)) continue;
+            if (!world.interpolateAt(slot, shotSrvTS, s)) continue;
+            slots[m] = slot;
+            minX[m] = s.x + PositionFrame.HB_OFF_X;
+            minY[m] = s.y + PositionFrame.HB_OFF_Y;
+            maxX[m] = minX[m] + PositionFrame.HB_W;
+            maxY[m] = minY[m] + PositionFrame.HB_H;
+            m++;
+        }
+
+        double[] originX = new double[pellets], originY = new double[pellets];
+        double[] rayX = new double[pellets], rayY = new double[pellets];
+        for (int k = 0; k < pellets; k++) {
+            originX[k] = ox;
+            originY[k] = oy;
+            rayX[k] = dirX[k] * range;
+            rayY[k] = dirY[k] * range;
+        }
+        double[] tEnter = new double[pellets * m];
+        HitMath.segmentsVsBoxes(originX, originY, rayX, rayY, 0, pellets, minX, minY, maxX, maxY, m, tEnter);
+
+        for (int k = 0; k < pellets; k++) {
+            double bestT = Double.POSITIVE_INFINITY;
+            int best = GameWorld.NO_SLOT;
+            for (int v = 0; v < m; v++) {
+                if (tEnter[k * m + v] < bestT) {
+                    bestT = tEnter[k * m + v];
+                    best = slots[v];
+                }
+            }
+            // 与 validateShot 一样，只算第一堵墙之前的命中；没有打中任何玩家的弹丸不需要检测墙
+            victimsOut[k] = best != GameWorld.NO_SLOT
+                    && bestT <= Math.min(1.0, game.terrain.raycast(ox, oy, rayX[k], rayY[k])) ? best : GameWorld.NO_SLOT;
+        }
+    }
+
+    /**
+     * 客户端上报的方向分量：NaN 和无穷大按 0，绝对值过大的按符号截成 ±1，之后再归一化。
+     */
+    static double clampDir(double v) {
         if (Double.isNaN(v) || Double.isInfinite(v)) return 0.0;
         if (Math.abs(v) > 1e4) return Math.signum(v);
         return v;
@@ -0,0 +1,117 @@
+package org.csu.pixelstrikebackend.game.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.csu.pixelstrikebackend.config.GameConfig;
+import org.csu.pixelstrikebackend.game.engine.MapCollision;
+import org.csu.pixelstrikebackend.game.engine.SupplySpawnTable;
+import org.csu.pixelstrikebackend.lobby.entity.Match;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 maps.id 加载地图的服务器端数据（classpath:maps/{id}.json，没有时用 maps/default.json）：
+ * 碰撞几何编译成 MapCollision，补给刷新点和类型组成 SupplySpawnTable。
+ * 每张地图只加载一次，之后所有房间共享同一份不可变数据。地图尺寸取 game.physics。文件格式：
+ * {"cellSize": 16, "solids": [{"x":..,"y":..,"w":..,"h":..}, ...],
+ *  "supply": {"points": [[x, y], ...], "types": ["HEALTH_PACK", ...]}}，supply.types 省略时用全部补给类型。
+ */
+@Service
+public class MapDataService {
+
+    private static final String DEFAULT_MAP = "default";
+    private static final double DEFAULT_CELL_SIZE = 16.0;
+    private static final List<String> DEFAULT_SUPPLY_TYPES = List.of(
+            "MachineGun",      // 机关枪
+            "Shotgun",         // 霰弹枪
+            "Railgun",         // 激光枪
+            "HEALTH_PACK",     // 血包
+            "POISON",          // 毒药
+            "BOMB"             // 炸弹
+    );
+
+    @Autowired private GameConfig gameConfig;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, MapData> cache = new ConcurrentHashMap<>();
+
+    private static final class MapData {
+        final MapCollision collision;
+        final SupplySpawnTable supplies;
+
+        MapData(MapCollision collision, SupplySpawnTable supplies) {
+            this.collision = collision;
+            this.supplies = supplies;
+        }
+    }
+
+    private static final MapData EMPTY = new MapData(MapCollision.EMPTY, SupplySpawnTable.EMPTY);
+
+    /**
+     * 对局所用地图的碰撞网格；预热房间等没有对局记录时用默认地图。
+     */
+    public MapCollision collisionFor(Match matchInfo) {
+        return forMatch(matchInfo).collision;
+    }
+
+    /**
+     * 对局所用地图的补给刷新表，没有配置刷新点时为空表（不刷新补给）。
+     */
+    public SupplySpawnTable supplySpawnsFor(Match matchInfo) {
+        return forMatch(matchInfo).supplies;
+    }
+
+    private MapData forMatch(Match matchInfo) {
+        Integer mapId = matchInfo != null ? matchInfo.getMapId() : null;
+        MapData map = mapId != null ? cache.computeIfAbsent(String.valueOf(mapId), this::load) : null;
+        if (map == null) {
+            map = cache.computeIfAbsent(DEFAULT_MAP, this::load);
+        }
+        return map != null ? map : EMPTY;
+    }
+
+    /**
+     * 读取并编译一张地图，文件不存在时返回 null（不缓存）。
+     */
+    private MapData load(String name) {
+        ClassPathResource resource = new ClassPathResource("maps/" + name + ".json");
+        if (!resource.exists()) {
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            JsonNode root = mapper.readTree(in);
+            GameConfig.Physics physics = gameConfig.getPhysics();
+            MapCollision.Builder builder = new MapCollision.Builder(physics.getMapW(), physics.getMapH(),
+                    root.path("cellSize").asDouble(DEFAULT_CELL_SIZE));
+            for (JsonNode solid : root.path("solids")) {
+                builder.solid(solid.path("x").asDouble(), solid.path("y").asDouble(),
+                        solid.path("w").asDouble(), solid.path("h").asDouble());
+            }
+
+            JsonNode supply = root.path("supply");
+            List<double[]> points = new ArrayList<>();
+            for (JsonNode point : supply.path("points")) {
+                points.add(new double[]{point.path(0).asDouble(), point.path(1).asDouble()});
+            }
+            List<String> types = new ArrayList<>();
+            for (JsonNode type : supply.path("types")) {
+                types.add(type.asText());
+            }
+            System.out.println("Loaded map data " + name + " with " + root.path("solids").size() + " solids and "
+                    + points.size() + " supply points.");
+            return new MapData(builder.build(), new SupplySpawnTable(points, types.isEmpty() ? DEFAULT_SUPPLY_TYPES : types));
+        } catch (IOException e) {
+            // 地图数据读不出来时不影响开局，只是子弹不会被墙挡住、也不刷新补给
+            System.err.println("Failed to load map data " + name + ": " + e.getMessage());
+            return EMPTY;
+        }
+    }
+}
@@ -61,6 +61,9 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
                 case "shot":
                     roomService.handleShot(session, root);
                     break;
+                case "volley":
+                    roomService.handleVolley(session, root);
+                    break;
                 case "pickup_supply":
                     roomService.handleSupplyPickup(session, root);
                     break;
@@ -77,7 +80,7 @@ public class GameWebSocketHandler extends TextWebSocketHandler {
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         System.out.println("Game WebSocket CLOSE: " + session.getId() + " with status: " + status);
         roomService.handleLeave(session);
-        roomService.removeSession(session);
+        roomService.removeSession(session, status);
     }
 
     @Override
@@ -50,6 +50,10 @@ public class CommonResponse<T> {
         return new CommonResponse<T>(code,message);
     }
 
+    public static <T> CommonResponse<T> createForError(int code,String message,T data){
+        return new CommonResponse<T>(code,message,data);
+    }
+
     @JsonIgnore
     public boolean isSuccess() {
         return this.status == ResponseCode.SUCCESS.getCode();
@@ -6,7 +6,8 @@ import lombok.Getter;
 public enum ResponseCode {
 
     SUCCESS(0,"SUCCESS"),
-    ERROR(1,"ERROR");
+    ERROR(1,"ERROR"),
+    CAPACITY_FULL(2,"CAPACITY_FULL"); // 游戏服务器容量已满，稍后重试
 
     private final int code;
     private final String desc;
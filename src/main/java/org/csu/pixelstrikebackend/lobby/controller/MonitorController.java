@@ -0,0 +1,42 @@
+package org.csu.pixelstrikebackend.lobby.controller;
+
+import org.csu.pixelstrikebackend.game.engine.TickClock;
+import org.csu.pixelstrikebackend.game.engine.TickWorker;
+import org.csu.pixelstrikebackend.game.service.GameCheckpointService;
+import org.csu.pixelstrikebackend.game.service.GameTickScheduler;
+import org.csu.pixelstrikebackend.lobby.common.CommonResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/monitor") // 服务器运行状态查询
+public class MonitorController {
+
+    @Autowired
+    private GameTickScheduler gameTickScheduler;
+    @Autowired
+    private GameCheckpointService gameCheckpointService;
+
+    // 查询每个 Tick 工作线程的房间数、玩家数和 tick 耗时
+    @GetMapping("/tick-workers")
+    public CommonResponse<List<TickWorker.Load>> getTickWorkers() {
+        return CommonResponse.createForSuccess("查询成功", gameTickScheduler.getWorkerLoads());
+    }
+
+    // 立即把所有进行中的对局写入检查点文件（停机时也会自动写出），返回写出的房间数
+    @PostMapping("/checkpoint")
+    public CommonResponse<Integer> checkpoint() {
+        return CommonResponse.createForSuccess("检查点已写出", gameCheckpointService.checkpoint().size());
+    }
+
+    // 查询每个房间的步数、迟到/丢步次数和单步超预算情况
+    @GetMapping("/rooms")
+    public CommonResponse<List<TickClock.Stats>> getRoomStats() {
+        return CommonResponse.createForSuccess("查询成功", gameTickScheduler.getRoomStats());
+    }
+}
@@ -1,8 +1,10 @@
 package org.csu.pixelstrikebackend.lobby.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import org.csu.pixelstrikebackend.game.AdmissionDecision;
 import org.csu.pixelstrikebackend.game.GameLobbyBridge;
 import org.csu.pixelstrikebackend.lobby.common.CommonResponse;
+import org.csu.pixelstrikebackend.lobby.common.ResponseCode;
 import org.csu.pixelstrikebackend.lobby.dto.CustomRoomDTO;
 import org.csu.pixelstrikebackend.lobby.dto.PlayerInRoomDTO;
 import org.csu.pixelstrikebackend.lobby.entity.*;
@@ -286,6 +288,13 @@ public class CustomRoomServiceImpl implements CustomRoomService {
 
         Map<Integer, Integer> selections = room.getPlayerCharacterSelections();
 
+        // 0. 询问游戏服务器是否还有容量，满载时不创建对局记录，让房主稍后重试
+        AdmissionDecision admission = gameLobbyBridge.checkAdmission(selections.size());
+        if (!admission.admitted) {
+            return CommonResponse.createForError(ResponseCode.CAPACITY_FULL.getCode(), "游戏服务器繁忙，请稍后再试",
+                    Map.of("reason", admission.reason, "retryAfterMs", admission.retryAfterMs));
+        }
+
         // 1. 创建对局记录
         Match newMatch = new Match();
         newMatch.setGameMode("自定义房间");
@@ -1,6 +1,7 @@
 package org.csu.pixelstrikebackend.lobby.service.impl;
 
 import org.csu.pixelstrikebackend.config.GameConfig;
+import org.csu.pixelstrikebackend.game.AdmissionDecision;
 import org.csu.pixelstrikebackend.game.GameLobbyBridge;
 import org.csu.pixelstrikebackend.lobby.common.CommonResponse;
 import org.csu.pixelstrikebackend.lobby.entity.*;
@@ -11,6 +12,7 @@ import org.csu.pixelstrikebackend.lobby.service.OnlineUserService;
 import org.csu.pixelstrikebackend.lobby.service.PlayerSessionService;
 import org.csu.pixelstrikebackend.lobby.websocket.WebSocketSessionManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,6 +32,8 @@ public class MatchmakingServiceImpl implements MatchmakingService {
     private final Map<Integer, String> playerRoomMap = new ConcurrentHashMap<>();
     //存储地图ID到其对应下面的房间映射，方便分地图匹配
     private final Map<Integer, List<MatchmakingRoom>> roomsByMap = new ConcurrentHashMap<>();
+    // 已满员但因游戏服务器容量不足而暂缓开局的房间 -> 下一次重试时间
+    private final Map<String, Long> deferredRooms = new ConcurrentHashMap<>();
 
     @Autowired private OnlineUserService onlineUserService;
     @Autowired private WebSocketSessionManager webSocketSessionManager;
@@ -72,9 +76,14 @@ public class MatchmakingServiceImpl implements MatchmakingService {
         System.out.println("Player " + userId + " (char: " + characterId + ") joined room " + targetRoom.getRoomId() + " for map " + mapId);
 
         if (targetRoom.isFull()) {
-            System.out.println("Room " + targetRoom.getRoomId() + " is full. Match successful!");
-            notifyMatchSuccess(targetRoom, mapId); // **传递 mapId**
-            mapRooms.remove(targetRoom);
+            AdmissionDecision admission = gameLobbyBridge.checkAdmission(targetRoom.getCurrentSize());
+            if (admission.admitted) {
+                System.out.println("Room " + targetRoom.getRoomId() + " is full. Match successful!");
+                notifyMatchSuccess(targetRoom, mapId); // **传递 mapId**
+                mapRooms.remove(targetRoom);
+            } else {
+                deferMatch(targetRoom, admission);
+            }
         }
         return CommonResponse.createForSuccessMessage("开始匹配成功");
     }
@@ -99,6 +108,7 @@ public class MatchmakingServiceImpl implements MatchmakingService {
                         break; // 找到并移除后即可跳出循环
                     }
                 }
+                deferredRooms.remove(roomId);
                 System.out.println("Room " + roomId + " is empty and has been destroyed.");
             }
         }
@@ -110,6 +120,50 @@ public class MatchmakingServiceImpl implements MatchmakingService {
         return CommonResponse.createForSuccessMessage("取消匹配成功");
     }
 
+    /**
+     * 游戏服务器容量已满：房间保持满员留在队列中，通知玩家稍后自动重试。
+     */
+    private void deferMatch(MatchmakingRoom room, AdmissionDecision admission) {
+        deferredRooms.put(room.getRoomId(), System.currentTimeMillis() + admission.retryAfterMs);
+        System.out.println("Room " + room.getRoomId() + " is full but the game server is at capacity: " + admission.reason);
+        Map<String, Object> delayedMessage = Map.of(
+                "type", "match_delayed",
+                "reason", admission.reason,
+                "retryAfterMs", admission.retryAfterMs
+        );
+        for (Integer playerId : room.getPlayers()) {
+            webSocketSessionManager.sendMessageToUser(playerId, delayedMessage);
+        }
+    }
+
+    /**
+     * 定期重试暂缓开局的房间。期间有玩家取消的房间重新回到普通匹配流程，满员时会再次询问容量。
+     */
+    @Scheduled(fixedDelay = 1000)
+    public synchronized void retryDeferredMatches() {
+        if (deferredRooms.isEmpty()) return;
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Integer, List<MatchmakingRoom>> entry : roomsByMap.entrySet()) {
+            for (MatchmakingRoom room : entry.getValue()) {
+                Long retryAt = deferredRooms.get(room.getRoomId());
+                if (retryAt == null || now < retryAt) continue;
+                if (!room.isFull()) {
+                    deferredRooms.remove(room.getRoomId());
+                    continue;
+                }
+                AdmissionDecision admission = gameLobbyBridge.checkAdmission(room.getCurrentSize());
+                if (admission.admitted) {
+                    deferredRooms.remove(room.getRoomId());
+                    System.out.println("Deferred room " + room.getRoomId() + " admitted. Match successful!");
+                    notifyMatchSuccess(room, entry.getKey());
+                    entry.getValue().remove(room);
+                } else {
+                    deferMatch(room, admission);
+                }
+            }
+        }
+    }
+
     private MatchmakingRoom findAvailableRoom() {
         for (MatchmakingRoom room : rooms) {
             if (!room.isFull()) {
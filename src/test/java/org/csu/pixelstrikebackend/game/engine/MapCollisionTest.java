@@ -0,0 +1,73 @@
+package org.csu.pixelstrikebackend.game.engine;
+
+import org.csu.pixelstrikebackend.game.geom.HitMath;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MapCollisionTest {
+
+    private static final double CELL = 16;
+    private static final int COLS = 48, ROWS = 32;
+
+    /**
+     * 格子行走的结果与逐个检查所有实心格的暴力解一致，包括起点在网格外、穿出网格再回来的线段和沿坐标轴的线段。
+     */
+    @Test
+    void raycastMatchesBruteForceOverAllCells() {
+        Random rnd = new Random(7L);
+        boolean[][] solid = new boolean[ROWS][COLS];
+        MapCollision.Builder builder = new MapCollision.Builder(COLS * CELL, ROWS * CELL, CELL);
+        for (int cy = 0; cy < ROWS; cy++) {
+            for (int cx = 0; cx < COLS; cx++) {
+                if (rnd.nextInt(100) < 12) {
+                    solid[cy][cx] = true;
+                    builder.solid(cx * CELL, cy * CELL, CELL, CELL);
+                }
+            }
+        }
+        MapCollision map = builder.build();
+
+        double w = COLS * CELL, h = ROWS * CELL;
+        for (int i = 0; i < 20_000; i++) {
+            double ox = rnd.nextDouble() * (w + 400) - 200;
+            double oy = rnd.nextDouble() * (h + 400) - 200;
+            double dx = rnd.nextDouble() * 2400 - 1200;
+            double dy = rnd.nextDouble() * 2400 - 1200;
+            if (i % 10 == 0) dx = 0;
+            if (i % 10 == 1) dy = 0;
+
+            double expected = bruteForce(solid, ox, oy, dx, dy);
+            double actual = map.raycast(ox, oy, dx, dy);
+            String msg = "segment (" + ox + "," + oy + ") + t*(" + dx + "," + dy + ")";
+            if (expected == Double.POSITIVE_INFINITY) {
+                assertEquals(Double.POSITIVE_INFINITY, actual, msg);
+            } else {
+                assertEquals(expected, actual, 1e-9, msg);
+            }
+        }
+    }
+
+    @Test
+    void rejectsNonFiniteInput() {
+        MapCollision map = new MapCollision.Builder(64, 64, CELL).solid(0, 0, 64, 64).build();
+        assertEquals(Double.POSITIVE_INFINITY, map.raycast(Double.NaN, 10, 5, 5));
+        assertEquals(Double.POSITIVE_INFINITY, map.raycast(10, 10, Double.POSITIVE_INFINITY, 0));
+        assertEquals(0.0, map.raycast(10, 10, 5, 5));
+    }
+
+    // 对每个实心格求线段进入的 t，取最小值
+    private static double bruteForce(boolean[][] solid, double ox, double oy, double dx, double dy) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int cy = 0; cy < ROWS; cy++) {
+            for (int cx = 0; cx < COLS; cx++) {
+                if (!solid[cy][cx]) continue;
+                double t = HitMath.raySegmentVsAABB(ox, oy, dx, dy, cx * CELL, cy * CELL, (cx + 1) * CELL, (cy + 1) * CELL);
+                best = Math.min(best, t);
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,84 @@
+package org.csu.pixelstrikebackend.game.engine;
+
+import org.csu.pixelstrikebackend.game.service.GameManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TickWorkerTest {
+
+    private final TickWorker source = new TickWorker(0);
+    private final TickWorker target = new TickWorker(1);
+
+    @AfterEach
+    void shutdown() {
+        source.shutdown();
+        target.shutdown();
+    }
+
+    /**
+     * 房间在迁移排队期间结束：release 投递给目标线程的 detach 先于转发过来的挂入执行，房间不能留在目标线程上。
+     */
+    @Test
+    void roomReleasedWhileMigrationIsQueuedIsNotLeaked() throws Exception {
+        CountDownLatch inFrame = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RoomStepper blocking = (game, dt) -> {
+            inFrame.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        source.start(blocking, governor());
+        target.start((game, dt) -> {}, governor());
+
+        GameManager.ActiveGame game = newGame();
+        source.attach(game);
+        assertTrue(inFrame.await(5, TimeUnit.SECONDS), "source worker never stepped the room");
+
+        // 旧线程仍在当前帧内：迁移排在帧之后，对局在同一帧内结束并从新线程上摘下
+        source.migrateTo(game, target);
+        game.concluded = true;
+        target.detach(game);
+        release.countDown();
+
+        assertEquals(0, source.attachedRooms());
+        assertEquals(0, target.attachedRooms());
+        assertEquals(0, target.getRoomCount());
+    }
+
+    @Test
+    void migratedRoomIsAttachedToTarget() throws Exception {
+        source.start((game, dt) -> {}, governor());
+        target.start((game, dt) -> {}, governor());
+
+        GameManager.ActiveGame game = newGame();
+        source.attach(game);
+        source.migrateTo(game, target);
+
+        assertEquals(0, source.attachedRooms());
+        assertEquals(1, target.attachedRooms());
+        assertEquals(1, target.getRoomCount());
+    }
+
+    private static TickRateGovernor governor() {
+        return new TickRateGovernor(new long[]{16}, 500, 0.85, 0.6);
+    }
+
+    private static GameManager.ActiveGame newGame() {
+        List<Integer> players = List.of(1, 2);
+        GameWorld world = new GameWorld(players, 100);
+        return new GameManager.ActiveGame(1L, players, Map.of(1, 1, 2, 1), new TickClock(16, 5),
+                new TimingWheel(16, 64, System.currentTimeMillis()), world, MapCollision.EMPTY,
+                new SupplyDirector(SupplySpawnTable.EMPTY, 4, 64), 32, null, null);
+    }
+}
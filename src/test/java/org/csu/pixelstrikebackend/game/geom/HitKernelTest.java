@@ -0,0 +1,66 @@
+package org.csu.pixelstrikebackend.game.geom;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HitKernelTest {
+
+    private static final int SEGMENTS = 64;
+
+    /**
+     * 向量实现与标量实现逐位一致：覆盖 dx/dy 恰为 0 的分支、起点落在盒子边上、退化盒子，
+     * 以及盒子数不是通道数整数倍时最后一组完整向量之后剩下的盒子。
+     */
+    @Test
+    void vectorKernelMatchesScalarBitForBit() {
+        assertTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(),
+                "surefire must run with --add-modules jdk.incubator.vector");
+        HitKernel vector = new VectorHitKernel();
+        HitKernel scalar = new ScalarHitKernel();
+        Random rnd = new Random(20240917L);
+
+        for (int round = 0; round < 200; round++) {
+            int boxes = rnd.nextInt(37); // 0 到 36 个，覆盖 2/4/8 通道下的各种余数
+            double[] ox = new double[SEGMENTS], oy = new double[SEGMENTS], dx = new double[SEGMENTS], dy = new double[SEGMENTS];
+            double[] minX = new double[boxes], minY = new double[boxes], maxX = new double[boxes], maxY = new double[boxes];
+            for (int b = 0; b < boxes; b++) {
+                minX[b] = rnd.nextDouble() * 1000;
+                minY[b] = rnd.nextDouble() * 1000;
+                boolean degenerate = rnd.nextInt(10) == 0;
+                maxX[b] = minX[b] + (degenerate ? 0 : rnd.nextDouble() * 200);
+                maxY[b] = minY[b] + (degenerate ? 0 : rnd.nextDouble() * 200);
+            }
+            for (int s = 0; s < SEGMENTS; s++) {
+                ox[s] = rnd.nextDouble() * 1200 - 100;
+                oy[s] = rnd.nextDouble() * 1200 - 100;
+                dx[s] = rnd.nextDouble() * 2000 - 1000;
+                dy[s] = rnd.nextDouble() * 2000 - 1000;
+                switch (s % 8) {
+                    case 0 -> dx[s] = 0.0;
+                    case 1 -> dy[s] = 0.0;
+                    case 2 -> { dx[s] = 0.0; dy[s] = 0.0; }
+                    case 3 -> dx[s] = -0.0;
+                    case 4 -> { if (boxes > 0) ox[s] = minX[rnd.nextInt(boxes)]; } // 起点恰好在盒子左边界所在直线上
+                    case 5 -> { if (boxes > 0) oy[s] = maxY[rnd.nextInt(boxes)]; }
+                    default -> { }
+                }
+            }
+
+            int from = rnd.nextInt(SEGMENTS / 2), to = from + rnd.nextInt(SEGMENTS - from + 1);
+            double[] expected = new double[SEGMENTS * boxes];
+            double[] actual = new double[SEGMENTS * boxes];
+            scalar.intersect(ox, oy, dx, dy, from, to, minX, minY, maxX, maxY, boxes, expected);
+            vector.intersect(ox, oy, dx, dy, from, to, minX, minY, maxX, maxY, boxes, actual);
+            for (int i = 0; i < expected.length; i++) {
+                int s = i / boxes, b = i % boxes;
+                assertEquals(Double.doubleToRawLongBits(expected[i]), Double.doubleToRawLongBits(actual[i]),
+                        "round " + round + " segment " + s + " box " + b + " of " + boxes
+                                + ": scalar " + expected[i] + ", vector " + actual[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.csu.pixelstrikebackend.game.service;
+
+import org.csu.pixelstrikebackend.config.GameConfig;
+import org.csu.pixelstrikebackend.game.engine.GameWorld;
+import org.csu.pixelstrikebackend.game.engine.MapCollision;
+import org.csu.pixelstrikebackend.game.engine.RoomTimer;
+import org.csu.pixelstrikebackend.game.engine.SnapshotRing;
+import org.csu.pixelstrikebackend.game.engine.SupplyDirector;
+import org.csu.pixelstrikebackend.game.engine.SupplySpawnTable;
+import org.csu.pixelstrikebackend.game.engine.TickClock;
+import org.csu.pixelstrikebackend.game.engine.TimingWheel;
+import org.csu.pixelstrikebackend.game.model.SupplyDrop;
+import org.csu.pixelstrikebackend.lobby.service.PlayerSessionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GameCheckpointServiceTest {
+
+    private static final long GAME_ID = 42L;
+    private static final long SHIFT = 7_000;
+
+    private final GameConfig config = new GameConfig();
+    private final Map<Long, GameManager.ActiveGame> activeGames = new ConcurrentHashMap<>();
+    private GameCheckpointService service;
+    private GameTimerService timerService;
+
+    @BeforeEach
+    void setUp() {
+        config.getEngine().setTickRateMs(16);
+        config.getPlayer().setMaxHealth(100);
+
+        timerService = new GameTimerService();
+        ReflectionTestUtils.setField(timerService, "gameConfig", config);
+
+        GameManager gameManager = mock(GameManager.class);
+        when(gameManager.getActiveGames()).thenReturn(activeGames);
+        MapDataService mapDataService = mock(MapDataService.class);
+        when(mapDataService.collisionFor(any())).thenReturn(MapCollision.EMPTY);
+        when(mapDataService.supplySpawnsFor(any())).thenReturn(SupplySpawnTable.EMPTY);
+
+        service = new GameCheckpointService();
+        ReflectionTestUtils.setField(service, "gameConfig", config);
+        ReflectionTestUtils.setField(service, "gameManager", gameManager);
+        ReflectionTestUtils.setField(service, "gameTickScheduler", mock(GameTickScheduler.class));
+        ReflectionTestUtils.setField(service, "gameTimerService", timerService);
+        ReflectionTestUtils.setField(service, "gameRuleEngine", mock(GameRuleEngine.class));
+        ReflectionTestUtils.setField(service, "mapDataService", mapDataService);
+        ReflectionTestUtils.setField(service, "playerSessionService", mock(PlayerSessionService.class));
+    }
+
+    @Test
+    void encodeThenDecodeRestoresRoomWithShiftedTimes() throws Exception {
+        long now = 1_000_000L;
+        List<Integer> players = List.of(7, 8);
+        GameWorld world = new GameWorld(players, 100);
+        GameManager.ActiveGame game = new GameManager.ActiveGame(GAME_ID, players, Map.of(7, 2, 8, 3),
+                new TickClock(16, 5), timerService.createWheel(now), world, MapCollision.EMPTY,
+                new SupplyDirector(SupplySpawnTable.EMPTY, 4, 64), 32, null, null);
+        game.startTime = now - 30_000;
+        game.nicknames.put(7, "alice");
+        game.nicknames.put(8, "bob");
+
+        world.applyDamage(0, 1, 40);
+        world.recordKill(0, 1);
+        world.setWeapon(0, "Shotgun");
+        world.recordSnapshot(0, now - 20, now - 500, 100.0, 200.0, 5.0, -1.0, true, false);
+        world.poison(1, now + 3_000);
+        game.timers.schedule(now + 1_000, RoomTimer.RESPAWN, 1);
+        game.timers.schedule(now + 4_000, RoomTimer.SUPPLY_EXPIRE, 3);
+        game.timers.schedule(now + 2_000, RoomTimer.RECONNECT_GRACE, 0); // 不写出，恢复时重新登记
+        game.supplies.restore(3, "HEALTH_PACK", 950.0, 2500.0);
+        int p = game.projectiles.spawn(0, 10.0, 20.0, 900.0, 0.0, 1200.0, 15, GameWorld.weaponCode("Pistol"));
+        game.projectiles.setPosition(p, 55.0, 20.0);
+
+        byte[] blob = service.encode(game);
+        assertNotNull(blob);
+        long restoredAt = now + SHIFT;
+        service.decode(new DataInputStream(new ByteArrayInputStream(blob)), SHIFT, restoredAt);
+
+        GameManager.ActiveGame restored = activeGames.get(GAME_ID);
+        assertNotNull(restored);
+        assertEquals(game.startTime + SHIFT, restored.startTime);
+        assertEquals(players, restored.playerIds);
+        assertEquals(2, restored.playerCharacterSelections.get(7));
+        assertEquals("bob", restored.nicknames.get(8));
+
+        GameWorld w = restored.world;
+        assertEquals(60, w.getHp(1));
+        assertEquals(1, w.getKills(0));
+        assertEquals(1, w.getDeaths(1));
+        assertEquals("Shotgun", w.getWeapon(0));
+        assertEquals(now + 3_000 + SHIFT, w.getPoisonUntil(1));
+
+        SnapshotRing.Pose pose = new SnapshotRing.Pose();
+        assertTrue(w.latestPose(0, pose));
+        assertEquals(now - 20 + SHIFT, pose.srvTS);
+        assertEquals(now - 500, pose.cliTS); // 客户端时间不顺延
+        assertEquals(100.0, pose.x);
+        assertEquals(200.0, pose.y);
+        assertTrue(pose.facing);
+
+        List<TimingWheel.Timeout> timers = new ArrayList<>();
+        restored.timers.forEachPending(timers::add);
+        assertEquals(3, timers.size());
+        assertTimer(timers, RoomTimer.RESPAWN, 1, now + 1_000 + SHIFT);
+        assertTimer(timers, RoomTimer.SUPPLY_EXPIRE, 3, now + 4_000 + SHIFT);
+        // 旧的重连宽限丢弃，换成从恢复时起算的全员宽限
+        assertTimer(timers, RoomTimer.RECONNECT_GRACE, -1, restoredAt + config.getCheckpoint().getReconnectGraceMs());
+
+        SupplyDrop drop = restored.supplies.remove(3);
+        assertNotNull(drop);
+        assertEquals("HEALTH_PACK", drop.getType());
+        assertEquals(950.0, drop.getX());
+
+        assertEquals(1, restored.projectiles.size());
+        assertEquals(55.0, restored.projectiles.getX(0));
+        assertEquals(10.0, restored.projectiles.getOriginX(0));
+        assertEquals(900.0, restored.projectiles.getVelocityX(0));
+        assertEquals(1200.0, restored.projectiles.getRange(0), 1e-9);
+        assertEquals(15, restored.projectiles.getDamage(0));
+    }
+
+    private static void assertTimer(List<TimingWheel.Timeout> timers, RoomTimer type, int arg, long deadlineMs) {
+        assertTrue(timers.stream().anyMatch(t -> t.getType() == type && t.getArg() == arg && t.getDeadlineMs() == deadlineMs),
+                () -> "missing " + type + "(" + arg + ") at " + deadlineMs);
+    }
+}
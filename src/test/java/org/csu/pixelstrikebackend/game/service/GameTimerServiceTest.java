@@ -0,0 +1,69 @@
+package org.csu.pixelstrikebackend.game.service;
+
+import org.csu.pixelstrikebackend.config.GameConfig;
+import org.csu.pixelstrikebackend.game.engine.GameWorld;
+import org.csu.pixelstrikebackend.game.engine.MapCollision;
+import org.csu.pixelstrikebackend.game.engine.RoomTimer;
+import org.csu.pixelstrikebackend.game.engine.SupplyDirector;
+import org.csu.pixelstrikebackend.game.engine.SupplySpawnTable;
+import org.csu.pixelstrikebackend.game.engine.TickClock;
+import org.csu.pixelstrikebackend.game.engine.TimingWheel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GameTimerServiceTest {
+
+    private static final long NOW = 1_000_000L;
+
+    private final GameTimerService timers = new GameTimerService();
+    private GameManager.ActiveGame game;
+
+    @BeforeEach
+    void setUp() {
+        GameConfig config = new GameConfig();
+        config.getEngine().setTickRateMs(16);
+        ReflectionTestUtils.setField(timers, "gameConfig", config);
+        List<Integer> players = List.of(1, 2);
+        game = new GameManager.ActiveGame(1L, players, Map.of(1, 1, 2, 1), new TickClock(16, 5),
+                timers.createWheel(NOW), new GameWorld(players, 100), MapCollision.EMPTY,
+                new SupplyDirector(SupplySpawnTable.EMPTY, 4, 64), 32, null, null);
+    }
+
+    @Test
+    void repeatedDisconnectKeepsOnlyLatestGrace() {
+        timers.scheduleReconnectGrace(game, 0, NOW + 1_000);
+        timers.scheduleReconnectGrace(game, 0, NOW + 5_000);
+
+        List<TimingWheel.Timeout> pending = graceTimers();
+        assertEquals(1, pending.size());
+        assertEquals(NOW + 5_000, pending.get(0).getDeadlineMs());
+    }
+
+    @Test
+    void rejoinCancelsGraceOfThatSlotOnly() {
+        timers.scheduleReconnectGrace(game, 0, NOW + 1_000);
+        timers.scheduleReconnectGrace(game, 1, NOW + 1_000);
+
+        timers.cancelReconnectGrace(game, 0);
+        timers.cancelReconnectGrace(game, 0); // 重复加入不受影响
+
+        List<TimingWheel.Timeout> pending = graceTimers();
+        assertEquals(1, pending.size());
+        assertEquals(1, pending.get(0).getArg());
+    }
+
+    private List<TimingWheel.Timeout> graceTimers() {
+        List<TimingWheel.Timeout> out = new ArrayList<>();
+        game.timers.forEachPending(t -> {
+            if (t.getType() == RoomTimer.RECONNECT_GRACE) out.add(t);
+        });
+        return out;
+    }
+}